@@ -2,6 +2,7 @@ package tn.esprithub.server.auth.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tn.esprithub.server.auth.dto.AuthResponse;
@@ -40,9 +41,15 @@ public class AuthController {
     }
     
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<Void>> logout() {
-        // In a real application, you might want to blacklist the JWT token
-        // For now, we'll just return a success response
+    public ResponseEntity<ApiResponse<Void>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        String refreshToken = request != null ? request.getRefreshToken() : null;
+        
+        authService.logout(accessToken, refreshToken);
         return ResponseEntity.ok(ApiResponse.success("Logout successful", null));
     }
 }
@@ -0,0 +1,25 @@
+package tn.esprithub.server.auth.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import tn.esprithub.server.common.enums.UserRole;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature and expiry have already been checked.
+ * Produced once per request by {@code IJwtService.verifyToken}.
+ */
+@Value
+@Builder
+public class JwtClaims {
+    String tokenId;
+    Long userId;
+    String email;
+    Instant issuedAt;
+    Instant expiresAt;
+    boolean refresh;
+    /** Only present on access tokens issued in stateless-principal mode. */
+    UserRole role;
+    Boolean enabled;
+}
@@ -0,0 +1,52 @@
+package tn.esprithub.server.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "refresh_tokens",
+       uniqueConstraints = @UniqueConstraint(columnNames = "tokenHash"),
+       indexes = {
+           @Index(name = "idx_refresh_tokens_family_id", columnList = "familyId"),
+           @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_token_seq")
+    @SequenceGenerator(name = "refresh_token_seq", sequenceName = "refresh_token_seq", allocationSize = 50)
+    private Long id;
+    
+    // SHA-256 of the token, the token itself is never stored
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+    
+    @Column(nullable = false)
+    private UUID familyId;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private Instant expiresAt;
+    
+    private Instant usedAt;
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean revoked = false;
+    
+    @CreationTimestamp
+    private Instant createdAt;
+}
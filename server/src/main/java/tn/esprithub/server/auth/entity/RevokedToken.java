@@ -0,0 +1,35 @@
+package tn.esprithub.server.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "revoked_tokens",
+       indexes = {
+           @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revokedAt"),
+           @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+    
+    @Id
+    @Column(length = 36)
+    private String tokenId;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private Instant expiresAt;
+    
+    @Column(nullable = false)
+    private Instant revokedAt;
+}
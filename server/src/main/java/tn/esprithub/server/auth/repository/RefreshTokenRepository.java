@@ -0,0 +1,31 @@
+package tn.esprithub.server.auth.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprithub.server.auth.entity.RefreshToken;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long>, RefreshTokenRotation {
+    
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") UUID familyId);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN " +
+                   "(SELECT id FROM refresh_tokens WHERE expires_at < :now LIMIT :batchSize)",
+           nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
@@ -0,0 +1,17 @@
+package tn.esprithub.server.auth.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenRotation {
+    
+    /**
+     * Marks a live token as used and returns its family in a single round-trip.
+     * Returns nothing when the token is unknown, expired, revoked or was already rotated.
+     */
+    Optional<RotatedToken> rotate(String tokenHash, Instant now);
+    
+    record RotatedToken(UUID familyId, Long userId) {
+    }
+}
@@ -0,0 +1,35 @@
+package tn.esprithub.server.auth.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@code UPDATE ... RETURNING} both writes and returns rows, which a Spring Data query method
+ * can only express as a read; running it through JDBC keeps it an explicit statement. It joins
+ * the caller's JPA transaction.
+ */
+@RequiredArgsConstructor
+class RefreshTokenRotationImpl implements RefreshTokenRotation {
+    
+    private static final String ROTATE_SQL = """
+            UPDATE refresh_tokens SET used_at = ?
+            WHERE token_hash = ? AND used_at IS NULL AND revoked = false AND expires_at > ?
+            RETURNING family_id, user_id""";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public Optional<RotatedToken> rotate(String tokenHash, Instant now) {
+        Timestamp at = Timestamp.from(now);
+        return jdbcTemplate.query(ROTATE_SQL,
+                        (rs, rowNum) -> new RotatedToken(rs.getObject("family_id", UUID.class), rs.getLong("user_id")),
+                        at, tokenHash, at)
+                .stream()
+                .findFirst();
+    }
+}
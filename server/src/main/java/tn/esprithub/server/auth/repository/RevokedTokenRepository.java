@@ -0,0 +1,23 @@
+package tn.esprithub.server.auth.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.esprithub.server.auth.entity.RevokedToken;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+    
+    List<RevokedToken> findByRevokedAtAfterAndExpiresAtAfter(Instant revokedSince, Instant now);
+    
+    @Modifying
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -2,81 +2,101 @@ package tn.esprithub.server.auth.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tn.esprithub.server.auth.dto.AuthResponse;
+import tn.esprithub.server.auth.dto.JwtClaims;
 import tn.esprithub.server.auth.dto.LoginRequest;
-import tn.esprithub.server.security.UserPrincipal;
+import tn.esprithub.server.security.AuthRateLimiter;
+import tn.esprithub.server.security.CustomUserDetailsService;
 import tn.esprithub.server.user.dto.UserDto;
+import tn.esprithub.server.user.entity.User;
+import tn.esprithub.server.user.repository.UserRepository;
 import tn.esprithub.server.user.service.IUserService;
+import tn.esprithub.server.utils.mapper.UserMapper;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthServiceImpl implements IAuthService {
     
-    private final AuthenticationManager authenticationManager;
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+    
     private final IJwtService jwtService;
+    private final IRefreshTokenService refreshTokenService;
     private final IUserService userService;
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final AuthRateLimiter authRateLimiter;
+    
+    private volatile String userNotFoundEncodedPassword;
     
-    @Transactional
+    // The user row is read once and the principal, the DTO and the GitHub state are all derived
+    // from it. No transaction is held here, so a pooled connection is not pinned while BCrypt runs.
     public AuthResponse authenticateUser(LoginRequest loginRequest) {
-        try {
-            // Validate email domain
-            if (!loginRequest.getEmail().endsWith("@esprit.tn")) {
-                throw new IllegalArgumentException("Email must be from esprit.tn domain");
-            }
-            
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getEmail(),
-                            loginRequest.getPassword()
-                    )
-            );
-            
-            UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            String accessToken = jwtService.generateAccessToken(authentication);
-            String refreshToken = jwtService.generateRefreshToken(userPrincipal.getId(), userPrincipal.getEmail());
-            
-            UserDto userDto = userService.getUserByEmail(userPrincipal.getEmail())
-                    .orElseThrow(() -> new IllegalStateException("User not found after authentication"));
-            
-            boolean requiresGithubAuth = !userService.hasGithubToken(userPrincipal.getEmail());
-            
-            log.info("User {} authenticated successfully", userPrincipal.getEmail());
-            
-            return AuthResponse.builder()
-                    .accessToken(accessToken)
-                    .refreshToken(refreshToken)
-                    .user(userDto)
-                    .requiresGithubAuth(requiresGithubAuth)
-                    .build();
-                    
-        } catch (AuthenticationException e) {
-            log.error("Authentication failed for user: {}", loginRequest.getEmail());
-            throw new IllegalArgumentException("Invalid email or password");
+        // Validate email domain
+        if (!loginRequest.getEmail().endsWith("@esprit.tn")) {
+            throw new IllegalArgumentException("Email must be from esprit.tn domain");
         }
+        
+        authRateLimiter.checkAccount(loginRequest.getEmail());
+        
+        User user = userRepository.findByEmail(loginRequest.getEmail()).orElse(null);
+        if (user == null) {
+            // Hash anyway so the response time does not reveal whether the account exists
+            passwordEncoder.matches(loginRequest.getPassword(), getUserNotFoundEncodedPassword());
+            throw invalidCredentials(loginRequest.getEmail());
+        }
+        if (user.getPassword() == null || !passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())
+                || !Boolean.TRUE.equals(user.getEnabled())) {
+            throw invalidCredentials(loginRequest.getEmail());
+        }
+        
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            userRepository.updatePassword(user.getId(), passwordEncoder.encode(loginRequest.getPassword()));
+            userDetailsService.evict(user.getId(), user.getEmail());
+            log.info("Upgraded password hash for user: {}", user.getEmail());
+        }
+        
+        String accessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), user.getRole(), true);
+        String refreshToken = refreshTokenService.issue(user.getId(), user.getEmail());
+        
+        UserDto userDto = userMapper.toDto(user);
+        boolean requiresGithubAuth = !Boolean.TRUE.equals(userDto.getHasGithubToken());
+        
+        log.info("User {} authenticated successfully", user.getEmail());
+        
+        return AuthResponse.builder()
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .user(userDto)
+                .requiresGithubAuth(requiresGithubAuth)
+                .build();
     }
     
-    @Transactional
+    // A presented refresh token is consumed even when the refresh is refused
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
     public AuthResponse refreshToken(String refreshToken) {
         try {
-            if (!jwtService.validateToken(refreshToken)) {
-                throw new IllegalArgumentException("Invalid refresh token");
-            }
+            JwtClaims claims = jwtService.verifyToken(refreshToken)
+                    .filter(JwtClaims::isRefresh)
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
             
-            Long userId = jwtService.getUserIdFromToken(refreshToken);
-            String email = jwtService.getEmailFromToken(refreshToken);
+            Long userId = claims.getUserId();
+            String email = claims.getEmail();
             
             UserDto userDto = userService.getUserById(userId)
                     .orElseThrow(() -> new IllegalArgumentException("User not found"));
             
-            String newAccessToken = jwtService.generateRefreshToken(userId, email);
-            String newRefreshToken = jwtService.generateRefreshToken(userId, email);
+            if (!Boolean.TRUE.equals(userDto.getEnabled())) {
+                throw new IllegalArgumentException("User account is disabled");
+            }
+            
+            String newRefreshToken = refreshTokenService.rotate(refreshToken, claims);
+            String newAccessToken = jwtService.generateAccessToken(userId, email, userDto.getRole(), true);
             
             boolean requiresGithubAuth = !userService.hasGithubToken(email);
             
@@ -87,9 +107,33 @@ public class AuthServiceImpl implements IAuthService {
                     .requiresGithubAuth(requiresGithubAuth)
                     .build();
                     
-        } catch (Exception e) {
-            log.error("Token refresh failed", e);
+        } catch (IllegalArgumentException e) {
+            // Only refusals are hidden behind one message; database and other failures propagate
+            // and roll the rotation back, so the presented token stays usable
+            log.warn("Token refresh refused: {}", e.getMessage());
             throw new IllegalArgumentException("Invalid refresh token");
         }
     }
+    
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            jwtService.revokeToken(accessToken);
+        }
+        if (refreshToken != null) {
+            refreshTokenService.revokeFamily(refreshToken);
+            jwtService.revokeToken(refreshToken);
+        }
+    }
+    
+    private IllegalArgumentException invalidCredentials(String email) {
+        log.error("Authentication failed for user: {}", email);
+        return new IllegalArgumentException("Invalid email or password");
+    }
+    
+    private String getUserNotFoundEncodedPassword() {
+        if (userNotFoundEncodedPassword == null) {
+            userNotFoundEncodedPassword = passwordEncoder.encode(USER_NOT_FOUND_PASSWORD);
+        }
+        return userNotFoundEncodedPassword;
+    }
 }
@@ -8,4 +8,6 @@ public interface IAuthService {
     AuthResponse authenticateUser(LoginRequest loginRequest);
     
     AuthResponse refreshToken(String refreshToken);
+    
+    void logout(String accessToken, String refreshToken);
 }
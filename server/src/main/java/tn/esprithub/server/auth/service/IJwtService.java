@@ -1,13 +1,23 @@
 package tn.esprithub.server.auth.service;
 
 import org.springframework.security.core.Authentication;
+import tn.esprithub.server.auth.dto.JwtClaims;
+import tn.esprithub.server.common.enums.UserRole;
+
+import java.util.Optional;
 
 public interface IJwtService {
     
     String generateAccessToken(Authentication authentication);
     
+    String generateAccessToken(Long userId, String email, UserRole role, boolean enabled);
+    
     String generateRefreshToken(Long userId, String email);
     
+    Optional<JwtClaims> verifyToken(String token);
+    
+    void revokeToken(String token);
+    
     Long getUserIdFromToken(String token);
     
     String getEmailFromToken(String token);
@@ -0,0 +1,12 @@
+package tn.esprithub.server.auth.service;
+
+import tn.esprithub.server.auth.dto.JwtClaims;
+
+public interface IRefreshTokenService {
+    
+    String issue(Long userId, String email);
+    
+    String rotate(String refreshToken, JwtClaims claims);
+    
+    void revokeFamily(String refreshToken);
+}
@@ -0,0 +1,10 @@
+package tn.esprithub.server.auth.service;
+
+import tn.esprithub.server.auth.dto.JwtClaims;
+
+public interface ITokenRevocationService {
+    
+    void revoke(JwtClaims claims);
+    
+    boolean isRevoked(String tokenId);
+}
@@ -2,91 +2,211 @@ package tn.esprithub.server.auth.service;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import tn.esprithub.server.auth.dto.JwtClaims;
+import tn.esprithub.server.common.enums.UserRole;
 import tn.esprithub.server.security.UserPrincipal;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @Slf4j
 public class JwtServiceImpl implements IJwtService {
     
+    private static final String EMAIL_CLAIM = "email";
+    private static final String ROLE_CLAIM = "role";
+    private static final String ENABLED_CLAIM = "enabled";
+    private static final String TOKEN_TYPE_CLAIM = "token_type";
+    private static final String REFRESH_TOKEN_TYPE = "refresh";
+    // Far above anything we issue; bounds the work spent on junk before parsing
+    private static final int MAX_TOKEN_LENGTH = 4096;
+    // Base64url of '{"', which every JSON header and payload starts with
+    private static final String JSON_OBJECT_PREFIX = "eyJ";
+    
     private final SecretKey jwtSecret;
+    private final JwtParser jwtParser;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ITokenRevocationService tokenRevocationService;
+    private final TokenRejectionMonitor rejectionMonitor;
     private final int jwtExpirationInMs;
     private final int refreshExpirationInMs;
+    private final boolean statelessPrincipal;
+    private final int statelessExpirationInMs;
     
     public JwtServiceImpl(@Value("${app.jwt.secret}") String secret,
                       @Value("${app.jwt.expiration}") int jwtExpirationInMs,
-                      @Value("${app.jwt.refresh-expiration}") int refreshExpirationInMs) {
+                      @Value("${app.jwt.refresh-expiration}") int refreshExpirationInMs,
+                      @Value("${app.jwt.stateless-principal.enabled:false}") boolean statelessPrincipal,
+                      @Value("${app.jwt.stateless-principal.expiration:900000}") int statelessExpirationInMs,
+                      VerifiedTokenCache verifiedTokenCache,
+                      ITokenRevocationService tokenRevocationService,
+                      TokenRejectionMonitor rejectionMonitor) {
         this.jwtSecret = Keys.hmacShaKeyFor(secret.getBytes());
+        // JwtParser is immutable and thread-safe, so one instance serves every request
+        this.jwtParser = Jwts.parser()
+                .verifyWith(jwtSecret)
+                .build();
         this.jwtExpirationInMs = jwtExpirationInMs;
         this.refreshExpirationInMs = refreshExpirationInMs;
+        this.statelessPrincipal = statelessPrincipal;
+        this.statelessExpirationInMs = statelessExpirationInMs;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.rejectionMonitor = rejectionMonitor;
     }
     
     public String generateAccessToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        return generateToken(userPrincipal.getId(), userPrincipal.getEmail(), jwtExpirationInMs);
+        String authority = userPrincipal.getAuthorities().iterator().next().getAuthority();
+        return generateAccessToken(userPrincipal.getId(), userPrincipal.getEmail(),
+                UserRole.fromAuthority(authority), userPrincipal.isEnabled());
+    }
+    
+    public String generateAccessToken(Long userId, String email, UserRole role, boolean enabled) {
+        if (!statelessPrincipal) {
+            return generateToken(userId, email, jwtExpirationInMs, Map.of());
+        }
+        
+        // Role and enabled state travel in the token, so the lifetime is kept short to bound
+        // how long a role change or an account disable takes to be picked up
+        Map<String, Object> principalClaims = Map.of(
+                ROLE_CLAIM, role.name(),
+                ENABLED_CLAIM, enabled
+        );
+        return generateToken(userId, email, statelessExpirationInMs, principalClaims);
     }
     
     public String generateRefreshToken(Long userId, String email) {
-        return generateToken(userId, email, refreshExpirationInMs);
+        return generateToken(userId, email, refreshExpirationInMs, Map.of(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE));
     }
     
-    private String generateToken(Long userId, String email, int expirationInMs) {
+    private String generateToken(Long userId, String email, int expirationInMs, Map<String, Object> extraClaims) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expirationInMs);
         
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(Long.toString(userId))
-                .claim("email", email)
+                .claim(EMAIL_CLAIM, email)
+                .claims(extraClaims)
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(jwtSecret, Jwts.SIG.HS512)
                 .compact();
     }
     
+    public Optional<JwtClaims> verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        // Before the cache lookup, which digests the token: garbage is turned away without any crypto
+        if (!isWellFormed(token)) {
+            rejectionMonitor.reject(TokenRejectionMonitor.Reason.MALFORMED);
+            return Optional.empty();
+        }
+        
+        JwtClaims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return tokenRevocationService.isRevoked(cached.getTokenId()) ? Optional.empty() : Optional.of(cached);
+        }
+        
+        try {
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            String role = claims.get(ROLE_CLAIM, String.class);
+            JwtClaims verified = JwtClaims.builder()
+                    .tokenId(claims.getId())
+                    .userId(Long.parseLong(claims.getSubject()))
+                    .email(claims.get(EMAIL_CLAIM, String.class))
+                    .issuedAt(claims.getIssuedAt().toInstant())
+                    .expiresAt(claims.getExpiration().toInstant())
+                    .role(role != null ? UserRole.valueOf(role) : null)
+                    .enabled(claims.get(ENABLED_CLAIM, Boolean.class))
+                    .refresh(REFRESH_TOKEN_TYPE.equals(claims.get(TOKEN_TYPE_CLAIM, String.class)))
+                    .build();
+            if (tokenRevocationService.isRevoked(verified.getTokenId())) {
+                rejectionMonitor.reject(TokenRejectionMonitor.Reason.REVOKED);
+                return Optional.empty();
+            }
+            verifiedTokenCache.put(token, verified);
+            return Optional.of(verified);
+        } catch (SecurityException ex) {
+            rejectionMonitor.reject(TokenRejectionMonitor.Reason.SIGNATURE);
+        } catch (MalformedJwtException ex) {
+            rejectionMonitor.reject(TokenRejectionMonitor.Reason.MALFORMED);
+        } catch (ExpiredJwtException ex) {
+            rejectionMonitor.reject(TokenRejectionMonitor.Reason.EXPIRED);
+        } catch (UnsupportedJwtException ex) {
+            rejectionMonitor.reject(TokenRejectionMonitor.Reason.UNSUPPORTED);
+        } catch (IllegalArgumentException ex) {
+            // Also covers a non-numeric subject or an unknown role claim
+            rejectionMonitor.reject(TokenRejectionMonitor.Reason.INVALID_CLAIMS);
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Cheap structural check run before signature verification: three non-empty base64url
+     * segments whose header and payload look like JSON objects. Anything failing it could
+     * never verify, so it is rejected without paying for parsing, HMAC or an exception.
+     */
+    private static boolean isWellFormed(String token) {
+        int length = token.length();
+        if (length > MAX_TOKEN_LENGTH || !token.startsWith(JSON_OBJECT_PREFIX)) {
+            return false;
+        }
+        
+        int dots = 0;
+        int segmentStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (i == segmentStart || ++dots > 2) {
+                    return false;
+                }
+                if (dots == 1 && !token.startsWith(JSON_OBJECT_PREFIX, i + 1)) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            } else if (!isBase64Url(c)) {
+                return false;
+            }
+        }
+        return dots == 2 && segmentStart < length;
+    }
+    
+    private static boolean isBase64Url(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+    
+    public void revokeToken(String token) {
+        verifyToken(token).ifPresent(claims -> {
+            tokenRevocationService.revoke(claims);
+            verifiedTokenCache.invalidate(token);
+        });
+    }
+    
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(jwtSecret)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
         
         return Long.parseLong(claims.getSubject());
     }
     
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(jwtSecret)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
         
-        return claims.get("email", String.class);
+        return claims.get(EMAIL_CLAIM, String.class);
     }
     
     public boolean validateToken(String authToken) {
-        try {
-            Jwts.parser()
-                .verifyWith(jwtSecret)
-                .build()
-                .parseSignedClaims(authToken);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("Invalid JWT signature");
-        } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token");
-        } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token");
-        } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token");
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
-        }
-        return false;
+        return verifyToken(authToken).isPresent();
     }
 }
@@ -0,0 +1,118 @@
+package tn.esprithub.server.auth.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprithub.server.auth.dto.JwtClaims;
+import tn.esprithub.server.auth.entity.RefreshToken;
+import tn.esprithub.server.auth.repository.RefreshTokenRepository;
+import tn.esprithub.server.auth.repository.RefreshTokenRotation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Tracks issued refresh tokens by family. Each login starts a family and every refresh
+ * rotates within it; presenting a token that was already rotated means it leaked, so the
+ * whole family is revoked and the legitimate holder has to log in again.
+ */
+@Service
+@Slf4j
+public class RefreshTokenServiceImpl implements IRefreshTokenService {
+    
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final IJwtService jwtService;
+    private final int refreshExpirationInMs;
+    private final int purgeBatchSize;
+    
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository,
+                                   IJwtService jwtService,
+                                   @Value("${app.jwt.refresh-expiration}") int refreshExpirationInMs,
+                                   @Value("${app.jwt.refresh-purge.batch-size:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.refreshExpirationInMs = refreshExpirationInMs;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+    
+    @Transactional
+    public String issue(Long userId, String email) {
+        return issue(userId, email, UUID.randomUUID());
+    }
+    
+    // Reuse detection has to commit even though the caller is told the token is invalid
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public String rotate(String refreshToken, JwtClaims claims) {
+        String tokenHash = hash(refreshToken);
+        Optional<RefreshTokenRotation.RotatedToken> rotated = refreshTokenRepository.rotate(tokenHash, Instant.now());
+        
+        if (rotated.isEmpty()) {
+            handleRejectedToken(tokenHash);
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        if (!rotated.get().userId().equals(claims.getUserId())) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        
+        return issue(claims.getUserId(), claims.getEmail(), rotated.get().familyId());
+    }
+    
+    @Transactional
+    public void revokeFamily(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(hash(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.refresh-purge.interval:PT1H}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int purged = 0;
+        int deleted;
+        // Each batch commits on its own so the purge never holds long locks on the table
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+    
+    private String issue(Long userId, String email, UUID familyId) {
+        String refreshToken = jwtService.generateRefreshToken(userId, email);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(refreshToken))
+                .familyId(familyId)
+                .userId(userId)
+                .expiresAt(Instant.now().plusMillis(refreshExpirationInMs))
+                .build());
+        return refreshToken;
+    }
+    
+    private void handleRejectedToken(String tokenHash) {
+        refreshTokenRepository.findByTokenHash(tokenHash)
+                .filter(token -> token.getUsedAt() != null && !token.getRevoked())
+                .ifPresent(token -> {
+                    int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId());
+                    log.warn("Refresh token reuse detected for user {}, revoked {} tokens in family {}",
+                            token.getUserId(), revoked, token.getFamilyId());
+                });
+    }
+    
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package tn.esprithub.server.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts rejected tokens per reason and logs them with sampling: at most one line per reason
+ * per interval, carrying the number of rejections that were not logged in between. A client
+ * replaying an expired token, or a scanner, therefore costs a counter increment rather than
+ * a log line.
+ */
+@Component
+@Slf4j
+public class TokenRejectionMonitor {
+    
+    public enum Reason {
+        MALFORMED, SIGNATURE, EXPIRED, UNSUPPORTED, INVALID_CLAIMS, REVOKED
+    }
+    
+    private final long logIntervalNanos;
+    private final Map<Reason, Counter> counters = new EnumMap<>(Reason.class);
+    private final Map<Reason, AtomicLong> lastLogged = new EnumMap<>(Reason.class);
+    private final Map<Reason, LongAdder> suppressed = new EnumMap<>(Reason.class);
+    
+    public TokenRejectionMonitor(@Value("${app.jwt.rejection-log.interval:PT10S}") Duration logInterval,
+                                 MeterRegistry meterRegistry) {
+        this.logIntervalNanos = logInterval.toNanos();
+        long start = System.nanoTime() - logIntervalNanos;
+        for (Reason reason : Reason.values()) {
+            counters.put(reason, Counter.builder("jwt.rejected")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .description("Tokens rejected by JWT verification")
+                    .register(meterRegistry));
+            lastLogged.put(reason, new AtomicLong(start));
+            suppressed.put(reason, new LongAdder());
+        }
+    }
+    
+    public void reject(Reason reason) {
+        counters.get(reason).increment();
+        
+        long now = System.nanoTime();
+        AtomicLong last = lastLogged.get(reason);
+        long previous = last.get();
+        if (now - previous < logIntervalNanos || !last.compareAndSet(previous, now)) {
+            suppressed.get(reason).increment();
+            return;
+        }
+        
+        long skipped = suppressed.get(reason).sumThenReset();
+        if (skipped > 0) {
+            log.warn("Rejected JWT token: {} ({} more since last report)", reason, skipped);
+        } else {
+            log.warn("Rejected JWT token: {}", reason);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tn.esprithub.server.auth.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprithub.server.auth.dto.JwtClaims;
+import tn.esprithub.server.auth.entity.RevokedToken;
+import tn.esprithub.server.auth.repository.RevokedTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked token ids are kept in memory for the per-request check and persisted in
+ * {@code revoked_tokens} so they survive restarts. Other nodes pick up new revocations
+ * by polling the table, which keeps the database off the request path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationServiceImpl implements ITokenRevocationService {
+    
+    // Revocations are read back with this overlap so rows written by nodes with a
+    // slightly lagging clock are not skipped by the watermark
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+    
+    private final RevokedTokenRepository revokedTokenRepository;
+    
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private volatile Instant syncWatermark = Instant.EPOCH;
+    
+    @Transactional
+    public void revoke(JwtClaims claims) {
+        Instant now = Instant.now();
+        if (claims.getTokenId() == null || claims.getExpiresAt().isBefore(now)) {
+            return;
+        }
+        
+        revokedTokenRepository.save(RevokedToken.builder()
+                .tokenId(claims.getTokenId())
+                .userId(claims.getUserId())
+                .expiresAt(claims.getExpiresAt())
+                .revokedAt(now)
+                .build());
+        revokedTokens.put(claims.getTokenId(), claims.getExpiresAt());
+        log.info("Revoked token {} for user {}", claims.getTokenId(), claims.getUserId());
+    }
+    
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revokedTokens.containsKey(tokenId);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadRevocations() {
+        Instant now = Instant.now();
+        List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(now);
+        active.forEach(this::remember);
+        log.info("Loaded {} active token revocations", active.size());
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-interval:PT10S}",
+               initialDelayString = "${app.jwt.revocation.sync-interval:PT10S}")
+    @Transactional(readOnly = true)
+    public void syncRevocations() {
+        Instant now = Instant.now();
+        revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(syncWatermark.minus(SYNC_OVERLAP), now)
+                .forEach(this::remember);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        int purged = revokedTokenRepository.deleteExpired(now);
+        if (purged > 0) {
+            log.info("Purged {} expired token revocations", purged);
+        }
+    }
+    
+    private void remember(RevokedToken revokedToken) {
+        revokedTokens.put(revokedToken.getTokenId(), revokedToken.getExpiresAt());
+        if (revokedToken.getRevokedAt().isAfter(syncWatermark)) {
+            syncWatermark = revokedToken.getRevokedAt();
+        }
+    }
+}
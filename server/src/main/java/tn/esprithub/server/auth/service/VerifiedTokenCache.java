@@ -0,0 +1,106 @@
+package tn.esprithub.server.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tn.esprithub.server.auth.dto.JwtClaims;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Bounded cache of already verified tokens, keyed by an HMAC-SHA256 digest of the token.
+ * The digest is keyed with the signing secret, so raw tokens are never kept in memory and
+ * entries verified under a previous secret can never match once the secret changes.
+ * Each entry expires at the token's own {@code exp}.
+ */
+@Component
+public class VerifiedTokenCache {
+    
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+    
+    private final boolean enabled;
+    private final SecretKeySpec digestKey;
+    private final ThreadLocal<Mac> digests;
+    private final Cache<String, JwtClaims> cache;
+    
+    public VerifiedTokenCache(@Value("${app.jwt.secret}") String secret,
+                              @Value("${app.jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${app.jwt.cache.maximum-size:10000}") long maximumSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.digestKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), DIGEST_ALGORITHM);
+        this.digests = ThreadLocal.withInitial(this::newMac);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+    }
+    
+    public JwtClaims get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.getIfPresent(digest(token));
+    }
+    
+    public void put(String token, JwtClaims claims) {
+        if (enabled) {
+            cache.put(digest(token), claims);
+        }
+    }
+    
+    public void invalidate(String token) {
+        cache.invalidate(digest(token));
+    }
+    
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+    
+    private String digest(String token) {
+        byte[] mac = digests.get().doFinal(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(mac);
+    }
+    
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+            mac.init(digestKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+    
+    private static final class ExpireAtTokenExpiry implements Expiry<String, JwtClaims> {
+        
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), claims.getExpiresAt()).toNanos());
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package tn.esprithub.server.common.enums;
+
+public enum JobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+    
+    public boolean isDone() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,12 @@
+package tn.esprithub.server.common.enums;
+
+/**
+ * Last completed step of provisioning one student repository. Steps run in declaration order,
+ * so a resumed item continues with the step after the stored one.
+ */
+public enum ProvisioningStep {
+    PENDING,
+    REPOSITORY_CREATED,
+    COLLABORATOR_ADDED,
+    COMPLETED
+}
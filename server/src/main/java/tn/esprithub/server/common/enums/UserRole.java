@@ -15,4 +15,13 @@ public enum UserRole {
     public String getAuthority() {
         return authority;
     }
+    
+    public static UserRole fromAuthority(String authority) {
+        for (UserRole role : values()) {
+            if (role.authority.equals(authority)) {
+                return role;
+            }
+        }
+        throw new IllegalArgumentException("Unknown authority: " + authority);
+    }
 }
@@ -0,0 +1,18 @@
+package tn.esprithub.server.common.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be retried later.
+ * Mapped to 503 with a {@code Retry-After} header by {@link GlobalExceptionHandler}.
+ */
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
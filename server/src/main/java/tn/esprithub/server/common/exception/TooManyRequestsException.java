@@ -0,0 +1,18 @@
+package tn.esprithub.server.common.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a caller exceeds a rate limit.
+ * Mapped to 429 with a {@code Retry-After} header by {@link GlobalExceptionHandler}.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,121 @@
+package tn.esprithub.server.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import tn.esprithub.server.github.client.DeadlineHttpClientGitHubConnector;
+import tn.esprithub.server.github.client.ETagCachingGitHubConnector;
+import tn.esprithub.server.github.client.InstrumentedGitHubConnector;
+import tn.esprithub.server.github.client.RateLimitedGitHubConnector;
+import tn.esprithub.server.github.client.ResilientGitHubConnector;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class GitHubClientConfig {
+    
+    @Value("${app.github.etag-cache.enabled:true}")
+    private boolean etagCacheEnabled;
+    
+    @Value("${app.github.etag-cache.max-memory:32MB}")
+    private DataSize etagCacheMaxMemory;
+    
+    @Value("${app.github.etag-cache.spill-directory:}")
+    private String etagCacheSpillDirectory;
+    
+    @Value("${app.github.etag-cache.max-spill-size:256MB}")
+    private DataSize etagCacheMaxSpillSize;
+    
+    @Value("${app.github.etag-cache.spill-ttl:1d}")
+    private Duration etagCacheSpillTtl;
+    
+    @Value("${app.github.scheduler.initial-concurrency:8}")
+    private int schedulerInitialConcurrency;
+    
+    @Value("${app.github.scheduler.max-concurrency:32}")
+    private int schedulerMaxConcurrency;
+    
+    @Value("${app.github.scheduler.background-reserve:0.2}")
+    private double schedulerBackgroundReserve;
+    
+    @Value("${app.github.scheduler.interactive-max-wait:5s}")
+    private Duration schedulerInteractiveMaxWait;
+    
+    @Value("${app.github.scheduler.background-max-wait:15m}")
+    private Duration schedulerBackgroundMaxWait;
+    
+    @Value("${app.github.resilience.read-timeout:10s}")
+    private Duration readTimeout;
+    
+    @Value("${app.github.resilience.write-timeout:30s}")
+    private Duration writeTimeout;
+    
+    @Value("${app.github.resilience.bulkhead.max-concurrent-calls:50}")
+    private int bulkheadMaxConcurrentCalls;
+    
+    @Value("${app.github.resilience.bulkhead.max-wait:100ms}")
+    private Duration bulkheadMaxWait;
+    
+    @Value("${app.github.resilience.circuit-breaker.failure-rate-threshold:0.5}")
+    private double circuitFailureRateThreshold;
+    
+    @Value("${app.github.resilience.circuit-breaker.window-size:50}")
+    private int circuitWindowSize;
+    
+    @Value("${app.github.resilience.circuit-breaker.minimum-calls:20}")
+    private int circuitMinimumCalls;
+    
+    @Value("${app.github.resilience.circuit-breaker.open-duration:30s}")
+    private Duration circuitOpenDuration;
+    
+    @Value("${app.github.resilience.circuit-breaker.half-open-calls:5}")
+    private int circuitHalfOpenCalls;
+    
+    /**
+     * One {@link HttpClient} for every GitHub call. It keeps connections alive between calls
+     * and multiplexes requests over HTTP/2 where GitHub offers it. Its internal work stays on
+     * the client's own platform threads even in virtual-thread mode: {@code GitHub.getMyself()}
+     * waits for its response inside a {@code synchronized} block, which pins the caller's carrier
+     * on Java 21, and completions that needed a carrier themselves could then only run once the
+     * pinned calls timed out.
+     */
+    @Bean
+    public HttpClient gitHubHttpClient(@Value("${app.github.connect-timeout:5s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+    
+    /**
+     * Connector chain shared by every GitHub client, outermost first: ETag cache, rate-limit
+     * scheduler, bulkhead and circuit breaker, metrics, HTTP with deadlines. The cache can answer
+     * when the layers below fail. Bulkhead permits and metrics sit below the scheduler so they
+     * only cover real network calls, not calls queued for budget.
+     */
+    @Bean
+    public GitHubConnector gitHubConnector(HttpClient gitHubHttpClient, MeterRegistry meterRegistry) {
+        GitHubConnector connector = new InstrumentedGitHubConnector(
+                new DeadlineHttpClientGitHubConnector(gitHubHttpClient, readTimeout, writeTimeout), meterRegistry);
+        
+        connector = new ResilientGitHubConnector(connector, bulkheadMaxConcurrentCalls, bulkheadMaxWait,
+                circuitFailureRateThreshold, circuitWindowSize, circuitMinimumCalls, circuitOpenDuration,
+                circuitHalfOpenCalls, meterRegistry);
+        
+        connector = new RateLimitedGitHubConnector(connector, schedulerInitialConcurrency, schedulerMaxConcurrency,
+                schedulerBackgroundReserve, schedulerInteractiveMaxWait, schedulerBackgroundMaxWait, meterRegistry);
+        
+        if (etagCacheEnabled) {
+            connector = new ETagCachingGitHubConnector(connector, etagCacheMaxMemory.toBytes(),
+                    StringUtils.hasText(etagCacheSpillDirectory) ? Path.of(etagCacheSpillDirectory) : null,
+                    etagCacheMaxSpillSize.toBytes(), etagCacheSpillTtl, meterRegistry);
+        }
+        return connector;
+    }
+}
@@ -0,0 +1,77 @@
+package tn.esprithub.server.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import tn.esprithub.server.github.simulator.GitHubApiSimulator;
+import tn.esprithub.server.github.simulator.GitHubSimulatorSettings;
+import tn.esprithub.server.github.simulator.LatencyDistribution;
+
+import java.time.Duration;
+
+/**
+ * Starts the GitHub API simulator for the {@code loadtest} profile, which also points
+ * {@code app.github.api-url} at it.
+ */
+@Configuration
+@Profile("loadtest")
+public class GitHubSimulatorConfig {
+    
+    @Value("${app.github.simulator.port:8089}")
+    private int port;
+    
+    @Value("${app.github.simulator.latency:none}")
+    private String latency;
+    
+    @Value("${app.github.simulator.error-rate:0.0}")
+    private double errorRate;
+    
+    @Value("${app.github.simulator.hang-rate:0.0}")
+    private double hangRate;
+    
+    @Value("${app.github.simulator.hang-duration:30s}")
+    private Duration hangDuration;
+    
+    @Value("${app.github.simulator.rate-limit:5000}")
+    private int rateLimit;
+    
+    @Value("${app.github.simulator.rate-limit-window:1h}")
+    private Duration rateLimitWindow;
+    
+    @Value("${app.github.simulator.repos-per-user:30}")
+    private int reposPerUser;
+    
+    @Value("${app.github.simulator.commits-per-repo:100}")
+    private int commitsPerRepo;
+    
+    @Value("${app.github.simulator.organizations:3}")
+    private int organizations;
+    
+    @Value("${app.github.simulator.teams-per-organization:5}")
+    private int teamsPerOrganization;
+    
+    @Value("${app.github.simulator.members-per-team:20}")
+    private int membersPerTeam;
+    
+    @Value("${app.github.simulator.seed:42}")
+    private long seed;
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public GitHubApiSimulator gitHubApiSimulator() {
+        return new GitHubApiSimulator(port, GitHubSimulatorSettings.builder()
+                .latency(LatencyDistribution.parse(latency))
+                .errorRate(errorRate)
+                .hangRate(hangRate)
+                .hangDuration(hangDuration)
+                .rateLimit(rateLimit)
+                .rateLimitWindow(rateLimitWindow)
+                .reposPerUser(reposPerUser)
+                .commitsPerRepo(commitsPerRepo)
+                .organizations(organizations)
+                .teamsPerOrganization(teamsPerOrganization)
+                .membersPerTeam(membersPerTeam)
+                .seed(seed)
+                .build());
+    }
+}
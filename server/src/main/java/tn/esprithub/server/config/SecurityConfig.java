@@ -1,6 +1,8 @@
 package tn.esprithub.server.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,16 +14,19 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import tn.esprithub.server.security.AuthRateLimitFilter;
+import tn.esprithub.server.security.BoundedPasswordEncoder;
 import tn.esprithub.server.security.CustomUserDetailsService;
 import tn.esprithub.server.security.JwtAuthenticationFilter;
+import tn.esprithub.server.security.PasswordEncoderCalibrator;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -32,17 +37,30 @@ public class SecurityConfig {
     
     private final CustomUserDetailsService customUserDetailsService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.security.password-hashing.threads:0}") int threads,
+            @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.password-hashing.max-wait:PT5S}") Duration maxWait,
+            @Value("${app.security.password-hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${app.security.password-hashing.target-latency:PT0.05S}") Duration targetLatency,
+            @Value("${app.security.password-hashing.min-bcrypt-strength:10}") int minBcryptStrength,
+            @Value("${app.security.password-hashing.min-argon2-iterations:2}") int minArgon2Iterations,
+            @Value("${app.security.password-hashing.argon2-memory-kib:16384}") int argon2MemoryKib,
+            MeterRegistry meterRegistry) {
+        PasswordEncoder calibrated = PasswordEncoderCalibrator.calibrate(
+                algorithm, targetLatency, minBcryptStrength, minArgon2Iterations, argon2MemoryKib);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(calibrated, poolSize, queueCapacity, maxWait, meterRegistry);
     }
     
     @Bean
-    public AuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(customUserDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
+        // Login goes through AuthServiceImpl, which also upgrades weaker password hashes
+        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(customUserDetailsService);
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
     
@@ -52,7 +70,7 @@ public class SecurityConfig {
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationProvider authenticationProvider) throws Exception {
         http
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -61,13 +79,15 @@ public class SecurityConfig {
                 .requestMatchers(
                     "/auth/**",
                     "/oauth2/**",
+                    "/github/webhooks",
                     "/actuator/health",
                     "/error",
                     "/favicon.ico"
                 ).permitAll()
                 .anyRequest().authenticated()
             )
-            .authenticationProvider(authenticationProvider())
+            .authenticationProvider(authenticationProvider)
+            .addFilterBefore(authRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
@@ -0,0 +1,145 @@
+package tn.esprithub.server.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.extras.HttpClientGitHubConnector;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tn.esprithub.server.github.client.DeadlineHttpClientGitHubConnector;
+import tn.esprithub.server.github.client.GitHubConnectorDecorator;
+
+import javax.sql.DataSource;
+import java.lang.module.ModuleDescriptor;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reports code paths that pin virtual threads to their carrier. At startup it checks the JDBC
+ * and GitHub client layers against the versions that replaced {@code synchronized} I/O with
+ * {@code ReentrantLock}; at runtime it streams the JFR {@code jdk.VirtualThreadPinned} event
+ * and logs where the pinning happened, sampled to one report per interval.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadDiagnostics implements DisposableBean {
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REPORTED_FRAMES = 8;
+    
+    // Releases that moved their blocking paths off synchronized
+    private static final List<MinimumVersion> MINIMUM_VERSIONS = List.of(
+            new MinimumVersion("PostgreSQL JDBC driver", "org.postgresql.Driver", "42.6.0"),
+            new MinimumVersion("HikariCP", "com.zaxxer.hikari.HikariDataSource", "5.1.0")
+    );
+    
+    private final DataSource dataSource;
+    private final GitHubConnector gitHubConnector;
+    private final Duration pinningThreshold;
+    private final long reportIntervalNanos;
+    private final Counter pinnedCounter;
+    private final AtomicLong lastReport = new AtomicLong();
+    private RecordingStream recordingStream;
+    
+    public VirtualThreadDiagnostics(DataSource dataSource,
+                                    GitHubConnector gitHubConnector,
+                                    @Value("${app.virtual-threads.pinning-threshold:20ms}") Duration pinningThreshold,
+                                    @Value("${app.virtual-threads.pinning-report-interval:1m}") Duration reportInterval,
+                                    MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.gitHubConnector = gitHubConnector;
+        this.pinningThreshold = pinningThreshold;
+        this.reportIntervalNanos = reportInterval.toNanos();
+        this.lastReport.set(System.nanoTime() - reportIntervalNanos);
+        this.pinnedCounter = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads pinned to their carrier longer than the threshold")
+                .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportPinningRisks() {
+        MINIMUM_VERSIONS.forEach(this::checkVersion);
+        
+        GitHubConnector transport = GitHubConnectorDecorator.unwrap(gitHubConnector);
+        if (!(transport instanceof DeadlineHttpClientGitHubConnector) && !(transport instanceof HttpClientGitHubConnector)) {
+            log.warn("GitHub connector {} may pin virtual threads, prefer a java.net.http.HttpClient based one",
+                    transport.getClass().getName());
+        }
+        if (!dataSource.getClass().getName().startsWith("com.zaxxer.hikari")) {
+            log.warn("DataSource {} is not HikariCP, check it for synchronized blocking calls",
+                    dataSource.getClass().getName());
+        }
+        
+        startPinningStream();
+    }
+    
+    @Override
+    public void destroy() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+    
+    private void checkVersion(MinimumVersion minimum) {
+        String version;
+        try {
+            version = Class.forName(minimum.className()).getPackage().getImplementationVersion();
+        } catch (ClassNotFoundException e) {
+            return;
+        }
+        if (version == null) {
+            log.info("{} version unknown, cannot check it for virtual-thread pinning", minimum.name());
+        } else if (ModuleDescriptor.Version.parse(version).compareTo(ModuleDescriptor.Version.parse(minimum.version())) < 0) {
+            log.warn("{} {} blocks inside synchronized blocks and will pin virtual threads, upgrade to {} or later",
+                    minimum.name(), version, minimum.version());
+        } else {
+            log.info("{} {} is virtual-thread friendly", minimum.name(), version);
+        }
+    }
+    
+    private void startPinningStream() {
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(pinningThreshold).withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+            log.info("Reporting virtual threads pinned for more than {} ms", pinningThreshold.toMillis());
+        } catch (RuntimeException e) {
+            log.warn("JFR is unavailable, virtual-thread pinning will not be reported: {}", e.getMessage());
+        }
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        
+        long now = System.nanoTime();
+        long previous = lastReport.get();
+        if (now - previous < reportIntervalNanos || !lastReport.compareAndSet(previous, now)) {
+            return;
+        }
+        
+        String frames = event.getStackTrace() == null ? "unknown" : event.getStackTrace().getFrames().stream()
+                .limit(REPORTED_FRAMES)
+                .map(VirtualThreadDiagnostics::describe)
+                .collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+        log.warn("Virtual thread pinned for {} ms:{}", event.getDuration().toMillis(), frames);
+    }
+    
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+    
+    private record MinimumVersion(String name, String className, String version) {
+    }
+}
@@ -0,0 +1,111 @@
+package tn.esprithub.server.github.client;
+
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * HTTP transport for the GitHub client on the shared {@link HttpClient}. Unlike the library's
+ * {@code HttpClientGitHubConnector}, every request carries a deadline for the whole response,
+ * headers and body: reads (GET/HEAD) and writes have separate limits, so a stalled GitHub
+ * response fails with {@link HttpTimeoutException} instead of holding the caller for the OS
+ * socket timeout. The body is read before {@code send} returns, which costs nothing extra since
+ * the library buffers it anyway. The connect timeout is set on the client itself.
+ */
+public class DeadlineHttpClientGitHubConnector implements GitHubConnector {
+    
+    private final HttpClient client;
+    private final Duration readTimeout;
+    private final Duration writeTimeout;
+    
+    public DeadlineHttpClientGitHubConnector(HttpClient client, Duration readTimeout, Duration writeTimeout) {
+        this.client = client;
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+    }
+    
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        boolean read = "GET".equals(request.method()) || "HEAD".equals(request.method());
+        Duration timeout = read ? readTimeout : writeTimeout;
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(request.url().toURI()).timeout(timeout);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid GitHub URL: " + request.url(), e);
+        }
+        request.allHeaders().forEach((name, values) -> builder.header(name, String.join(",", values)));
+        
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+        if (request.hasBody()) {
+            try (InputStream stream = request.body()) {
+                body = HttpRequest.BodyPublishers.ofByteArray(stream.readAllBytes());
+            }
+        }
+        builder.method(request.method(), body);
+        
+        CompletableFuture<HttpResponse<byte[]>> response = client.sendAsync(builder.build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        try {
+            return new Response(request, response.get(timeout.toNanos(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            // Cancelling aborts the exchange and frees the connection
+            response.cancel(true);
+            throw new HttpTimeoutException("GitHub response did not complete within " + timeout);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling GitHub");
+        }
+    }
+    
+    // Same exception types as HttpClient.send, but with the caller's stack trace
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof HttpTimeoutException) {
+            return (IOException) new HttpTimeoutException(cause.getMessage()).initCause(cause);
+        }
+        if (cause instanceof ConnectException) {
+            return (IOException) new ConnectException(cause.getMessage()).initCause(cause);
+        }
+        if (cause instanceof IOException) {
+            return new IOException(cause.getMessage(), cause);
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return new IOException(cause);
+    }
+    
+    private static final class Response extends GitHubConnectorResponse.ByteArrayResponse {
+        
+        private final byte[] body;
+        
+        Response(GitHubConnectorRequest request, HttpResponse<byte[]> response) {
+            super(request, response.statusCode(), response.headers().map());
+            this.body = response.body();
+        }
+        
+        @Override
+        protected InputStream rawBodyStream() {
+            return body != null ? new ByteArrayInputStream(body) : null;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package tn.esprithub.server.github.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Remembers the ETag and body of successful GET responses and revalidates them with
+ * {@code If-None-Match}. GitHub answers an unchanged resource with 304, which does not count
+ * against the rate limit, and the cached body is replayed to the client as a 200.
+ * <p>
+ * Entries are keyed by a digest of the URL, {@code Accept} and {@code Authorization} headers,
+ * since GitHub responses differ per token. The in-memory cache is bounded by body size; when a
+ * spill directory is configured, entries evicted for size are written there and promoted back
+ * to memory on their next use. Spill files are written under a temporary name and moved into
+ * place, and a lookup takes a file by moving it aside, so no reader sees a partial file. Files
+ * older than {@code spillTtl}, such as those of tokens since revoked, are deleted at startup and
+ * ignored afterwards. When revalidation fails with an I/O error (timeout, open circuit,
+ * exhausted budget) the cached response is served as is.
+ */
+@Slf4j
+public class ETagCachingGitHubConnector extends GitHubConnectorDecorator {
+    
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final int NOT_MODIFIED = 304;
+    private static final int OK = 200;
+    // Keys are hex digests, so these suffixes never collide with a spilled entry
+    private static final String WRITING_SUFFIX = ".writing";
+    private static final String READING_SUFFIX = ".reading";
+    
+    private final Cache<String, CachedResponse> cache;
+    private final Path spillDirectory;
+    private final long maxSpillBytes;
+    private final Duration spillTtl;
+    private final AtomicLong spilledBytes = new AtomicLong();
+    private final AtomicLong tempFiles = new AtomicLong();
+    private final Counter revalidated;
+    private final Counter changed;
+    private final Counter misses;
+    private final Counter stale;
+    private final Counter spills;
+    
+    /**
+     * @param spillDirectory directory for entries evicted from memory, or {@code null} to drop them
+     */
+    public ETagCachingGitHubConnector(GitHubConnector delegate, long maxMemoryBytes, Path spillDirectory,
+                                      long maxSpillBytes, Duration spillTtl, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.spillDirectory = spillDirectory;
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillTtl = spillTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryBytes)
+                .weigher((String key, CachedResponse response) -> response.weight())
+                .removalListener((String key, CachedResponse response, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE && key != null && response != null) {
+                        spill(key, response);
+                    }
+                })
+                .build();
+        if (spillDirectory != null) {
+            initSpillDirectory();
+        }
+        
+        this.revalidated = requests(meterRegistry, "not_modified");
+        this.changed = requests(meterRegistry, "changed");
+        this.misses = requests(meterRegistry, "miss");
+        this.stale = requests(meterRegistry, "stale");
+        this.spills = Counter.builder("github.etag-cache.spills")
+                .description("Cached GitHub responses written to the spill directory")
+                .register(meterRegistry);
+        Gauge.builder("github.etag-cache.size", cache, Cache::estimatedSize)
+                .description("GitHub responses cached in memory")
+                .register(meterRegistry);
+        Gauge.builder("github.etag-cache.spilled-bytes", spilledBytes, AtomicLong::get)
+                .description("Bytes of GitHub responses held in the spill directory")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        if (!"GET".equals(request.method()) || request.hasBody()) {
+            return delegate.send(request);
+        }
+        
+        String key = key(request);
+        CachedResponse cached = lookup(key);
+        if (cached == null) {
+            misses.increment();
+            return store(key, delegate.send(request));
+        }
+        
+        GitHubConnectorResponse response;
+        try {
+            response = delegate.send(new ConditionalRequest(request, cached.etag()));
+        } catch (IOException e) {
+            // GitHub is unreachable, timing out or shed by the circuit breaker: stale beats nothing
+            stale.increment();
+            log.debug("Serving cached GitHub response for {} after: {}", request.url().getPath(), e.getMessage());
+            return new ReplayedResponse(request, OK, cached.headers(), cached.body());
+        }
+        if (response.statusCode() != NOT_MODIFIED) {
+            changed.increment();
+            return store(key, response);
+        }
+        
+        revalidated.increment();
+        // The 304 carries the current rate-limit headers, the cached entry everything else
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(cached.headers());
+        response.allHeaders().forEach((name, values) -> {
+            if (name != null && !CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                headers.put(name, values);
+            }
+        });
+        response.close();
+        return new ReplayedResponse(request, OK, headers, cached.body());
+    }
+    
+    private GitHubConnectorResponse store(String key, GitHubConnectorResponse response) throws IOException {
+        String etag = response.header(ETAG);
+        if (response.statusCode() != OK || etag == null) {
+            return response;
+        }
+        
+        byte[] body;
+        try (InputStream stream = response.bodyStream()) {
+            body = stream.readAllBytes();
+        } finally {
+            response.close();
+        }
+        // bodyStream() has already decoded any gzip content, so the encoding headers no longer apply
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        response.allHeaders().forEach((name, values) -> {
+            if (name != null && !CONTENT_ENCODING.equalsIgnoreCase(name) && !CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                headers.put(name, values);
+            }
+        });
+        cache.put(key, new CachedResponse(etag, headers, body));
+        return new ReplayedResponse(response.request(), OK, headers, body);
+    }
+    
+    private CachedResponse lookup(String key) {
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null || spillDirectory == null) {
+            return cached;
+        }
+        
+        // Moving the file aside first means a concurrent lookup or spill of the same key cannot interfere
+        Path taken = take(key);
+        if (taken == null) {
+            return null;
+        }
+        long size = 0;
+        try {
+            size = Files.size(taken);
+            if (isExpired(taken)) {
+                return null;
+            }
+            CachedResponse promoted = CachedResponse.read(Files.readAllBytes(taken));
+            cache.put(key, promoted);
+            return promoted;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discarding unreadable GitHub cache entry {}: {}", key, e.getMessage());
+            return null;
+        } finally {
+            delete(taken);
+            spilledBytes.addAndGet(-size);
+        }
+    }
+    
+    private void spill(String key, CachedResponse response) {
+        if (spillDirectory == null) {
+            return;
+        }
+        byte[] bytes = response.write();
+        if (spilledBytes.addAndGet(bytes.length) > maxSpillBytes) {
+            spilledBytes.addAndGet(-bytes.length);
+            return;
+        }
+        Path file = spillDirectory.resolve(key);
+        Path writing = tempFile(key, WRITING_SUFFIX);
+        try {
+            Files.write(writing, bytes);
+            // An older copy of this entry is replaced, and its bytes no longer counted
+            Path older = take(key);
+            if (older != null) {
+                spilledBytes.addAndGet(-sizeOf(older));
+                delete(older);
+            }
+            Files.move(writing, file, StandardCopyOption.ATOMIC_MOVE);
+            spills.increment();
+        } catch (IOException e) {
+            delete(writing);
+            spilledBytes.addAndGet(-bytes.length);
+            log.warn("Could not spill GitHub cache entry to {}: {}", spillDirectory, e.getMessage());
+        }
+    }
+    
+    // Drops files left over from an earlier run that are too old to trust, or were half written
+    private void initSpillDirectory() {
+        try {
+            Files.createDirectories(spillDirectory);
+            long deleted = 0;
+            try (Stream<Path> files = Files.list(spillDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(WRITING_SUFFIX) || name.endsWith(READING_SUFFIX) || isExpired(file)) {
+                        delete(file);
+                        deleted++;
+                    } else {
+                        spilledBytes.addAndGet(sizeOf(file));
+                    }
+                }
+            }
+            if (deleted > 0) {
+                log.info("Deleted {} expired or incomplete GitHub cache files from {}", deleted, spillDirectory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot use GitHub cache directory " + spillDirectory, e);
+        }
+    }
+    
+    // Moves the spill file of key aside for the caller to read or delete, or returns null if there is none
+    private Path take(String key) {
+        Path taken = tempFile(key, READING_SUFFIX);
+        try {
+            Files.move(spillDirectory.resolve(key), taken, StandardCopyOption.ATOMIC_MOVE);
+            return taken;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Could not take GitHub cache entry {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+    
+    private boolean isExpired(Path file) throws IOException {
+        Instant modified = Files.getLastModifiedTime(file).toInstant();
+        return modified.plus(spillTtl).isBefore(Instant.now());
+    }
+    
+    private Path tempFile(String key, String suffix) {
+        return spillDirectory.resolve(key + "." + tempFiles.incrementAndGet() + suffix);
+    }
+    
+    private static long sizeOf(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+    
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete GitHub cache file {}: {}", file, e.getMessage());
+        }
+    }
+    
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.etag-cache.requests")
+                .description("Cacheable GitHub GET requests by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private static String key(GitHubConnectorRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.url().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(request.header("Accept")).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(request.header("Authorization")).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private record CachedResponse(String etag, Map<String, List<String>> headers, byte[] body) {
+        
+        int weight() {
+            return body.length + 512;
+        }
+        
+        byte[] write() {
+            try (var buffer = new ByteArrayOutputStream(weight());
+                 var out = new DataOutputStream(buffer)) {
+                out.writeUTF(etag);
+                out.writeInt(headers.size());
+                for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                    out.writeUTF(header.getKey());
+                    out.writeInt(header.getValue().size());
+                    for (String value : header.getValue()) {
+                        out.writeUTF(value);
+                    }
+                }
+                out.writeInt(body.length);
+                out.write(body);
+                out.flush();
+                return buffer.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        static CachedResponse read(byte[] bytes) throws IOException {
+            try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                String etag = in.readUTF();
+                Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                int headerCount = in.readInt();
+                for (int i = 0; i < headerCount; i++) {
+                    String name = in.readUTF();
+                    int valueCount = in.readInt();
+                    List<String> values = new ArrayList<>(valueCount);
+                    for (int j = 0; j < valueCount; j++) {
+                        values.add(in.readUTF());
+                    }
+                    headers.put(name, values);
+                }
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                return new CachedResponse(etag, headers, body);
+            }
+        }
+    }
+    
+    private static final class ConditionalRequest implements GitHubConnectorRequest {
+        
+        private final GitHubConnectorRequest request;
+        private final Map<String, List<String>> headers;
+        
+        ConditionalRequest(GitHubConnectorRequest request, String etag) {
+            this.request = request;
+            this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            this.headers.putAll(request.allHeaders());
+            this.headers.put(IF_NONE_MATCH, List.of(etag));
+        }
+        
+        @Override
+        public String method() {
+            return request.method();
+        }
+        
+        @Override
+        public Map<String, List<String>> allHeaders() {
+            return headers;
+        }
+        
+        @Override
+        public String header(String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : String.join(",", values);
+        }
+        
+        @Override
+        public String contentType() {
+            return request.contentType();
+        }
+        
+        @Override
+        public InputStream body() {
+            return request.body();
+        }
+        
+        @Override
+        public URL url() {
+            return request.url();
+        }
+        
+        @Override
+        public boolean hasBody() {
+            return request.hasBody();
+        }
+    }
+    
+    private static final class ReplayedResponse extends GitHubConnectorResponse {
+        
+        private final byte[] body;
+        
+        ReplayedResponse(GitHubConnectorRequest request, int statusCode, Map<String, List<String>> headers, byte[] body) {
+            super(request, statusCode, headers);
+            this.body = body;
+        }
+        
+        @Override
+        public InputStream bodyStream() {
+            return new ByteArrayInputStream(body);
+        }
+        
+        @Override
+        public void close() {
+            // Nothing to release, the body lives in memory
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package tn.esprithub.server.github.client;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a GitHub call could not be admitted because the rate-limit budget stayed spent
+ * for longer than the caller may wait. The scheduler sits above the circuit breaker, so the call
+ * never reaches the breaker and is not counted against GitHub's health.
+ */
+public class GitHubBudgetExhaustedException extends IOException {
+    
+    public GitHubBudgetExhaustedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,164 @@
+package tn.esprithub.server.github.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubAbuseLimitHandler;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.GitHubRateLimitHandler;
+import org.kohsuke.github.HttpException;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out {@link GitHub} clients that all share one connector, and therefore one pool of
+ * keep-alive connections. Clients are cached per token for a short time, keyed by a digest
+ * so raw tokens are not held as map keys. A cached client remembers the result of
+ * {@code getMyself()}, which is why entries expire after write rather than after access.
+ */
+@Component
+public class GitHubClientFactory {
+    
+    // The library's default handlers sleep the calling thread until the limit resets and then
+    // retry, bypassing the scheduler's wait limits; RateLimitedGitHubConnector alone decides when to wait
+    private static final GitHubRateLimitHandler FAIL_ON_RATE_LIMIT = new GitHubRateLimitHandler() {
+        @Override
+        public void onError(GitHubConnectorResponse response) throws IOException {
+            throw new HttpException(response);
+        }
+    };
+    private static final GitHubAbuseLimitHandler FAIL_ON_ABUSE_LIMIT = new GitHubAbuseLimitHandler() {
+        @Override
+        public void onError(GitHubConnectorResponse response) throws IOException {
+            throw new HttpException(response);
+        }
+    };
+    
+    private final GitHubConnector gitHubConnector;
+    private final String apiUrl;
+    private final Cache<String, GitHub> clients;
+    
+    public GitHubClientFactory(GitHubConnector gitHubConnector,
+                               @Value("${app.github.api-url:https://api.github.com}") String apiUrl,
+                               @Value("${app.github.client-cache.ttl:2m}") Duration ttl,
+                               @Value("${app.github.client-cache.maximum-size:1000}") long maximumSize,
+                               MeterRegistry meterRegistry) {
+        this.gitHubConnector = gitHubConnector;
+        this.apiUrl = apiUrl;
+        this.clients = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, clients, "github.clients");
+    }
+    
+    public GitHub forToken(String accessToken) {
+        return clients.get(digest(accessToken), key -> build(accessToken));
+    }
+    
+    /**
+     * Uncached client for background jobs that walk many tokens once, so they neither evict
+     * interactive users' clients nor read a {@code getMyself()} remembered by one.
+     */
+    public GitHub newClient(String accessToken) {
+        return build(accessToken);
+    }
+    
+    /**
+     * GET through the shared connector for fields the {@link GitHub} model does not expose,
+     * such as a repository's {@code template_repository}.
+     */
+    public JsonNode getJson(String accessToken, String path) throws IOException {
+        URL url = URI.create(apiUrl.replaceAll("/+$", "") + path).toURL();
+        GitHubConnectorRequest request = new JsonGetRequest(url, Map.of(
+                "Authorization", List.of("token " + accessToken),
+                "Accept", List.of("application/vnd.github+json")));
+        try (GitHubConnectorResponse response = gitHubConnector.send(request)) {
+            if (response.statusCode() != 200) {
+                throw new HttpException(response);
+            }
+            try (InputStream body = response.bodyStream()) {
+                return GitHub.getMappingObjectReader().readTree(body);
+            }
+        }
+    }
+    
+    public void invalidate(String accessToken) {
+        clients.invalidate(digest(accessToken));
+    }
+    
+    private GitHub build(String accessToken) {
+        try {
+            return new GitHubBuilder()
+                    .withEndpoint(apiUrl)
+                    .withConnector(gitHubConnector)
+                    .withRateLimitHandler(FAIL_ON_RATE_LIMIT)
+                    .withAbuseLimitHandler(FAIL_ON_ABUSE_LIMIT)
+                    .withOAuthToken(accessToken)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create GitHub client", e);
+        }
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private record JsonGetRequest(URL url, Map<String, List<String>> allHeaders) implements GitHubConnectorRequest {
+        
+        @Override
+        public String method() {
+            return "GET";
+        }
+        
+        @Override
+        public String header(String name) {
+            return allHeaders.entrySet().stream()
+                    .filter(header -> header.getKey().equalsIgnoreCase(name))
+                    .map(header -> String.join(",", header.getValue()))
+                    .findFirst()
+                    .orElse(null);
+        }
+        
+        @Override
+        public String contentType() {
+            return null;
+        }
+        
+        @Override
+        public InputStream body() {
+            return null;
+        }
+        
+        @Override
+        public boolean hasBody() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package tn.esprithub.server.github.client;
+
+import org.kohsuke.github.connector.GitHubConnector;
+
+/**
+ * Base for connectors layered around the shared HTTP connector (metrics, caching, rate
+ * limiting). Keeps the chain inspectable so diagnostics can look at the transport underneath.
+ */
+public abstract class GitHubConnectorDecorator implements GitHubConnector {
+    
+    protected final GitHubConnector delegate;
+    
+    protected GitHubConnectorDecorator(GitHubConnector delegate) {
+        this.delegate = delegate;
+    }
+    
+    public static GitHubConnector unwrap(GitHubConnector connector) {
+        GitHubConnector current = connector;
+        while (current instanceof GitHubConnectorDecorator decorator) {
+            current = decorator.delegate;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,37 @@
+package tn.esprithub.server.github.client;
+
+import java.io.IOException;
+
+/**
+ * Scheduling class of a GitHub call. Interactive calls are made on behalf of a user waiting
+ * for a response and are always dispatched first; background calls (syncs, provisioning) also
+ * leave a share of each token's budget untouched so interactive calls do not run dry.
+ * <p>
+ * The priority applies to the calling thread, so wrap the GitHub client calls that belong to
+ * background work in {@link #callAs}.
+ */
+public enum GitHubRequestPriority {
+    INTERACTIVE,
+    BACKGROUND;
+    
+    private static final ThreadLocal<GitHubRequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+    
+    public static GitHubRequestPriority current() {
+        return CURRENT.get();
+    }
+    
+    public static <T> T callAs(GitHubRequestPriority priority, GitHubCall<T> call) throws IOException {
+        GitHubRequestPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return call.call();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+    
+    @FunctionalInterface
+    public interface GitHubCall<T> {
+        T call() throws IOException;
+    }
+}
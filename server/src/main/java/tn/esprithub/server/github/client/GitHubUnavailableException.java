@@ -0,0 +1,20 @@
+package tn.esprithub.server.github.client;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Thrown without contacting GitHub when the circuit breaker is open or the bulkhead is full.
+ */
+@Getter
+public class GitHubUnavailableException extends IOException {
+    
+    private final Duration retryAfter;
+    
+    public GitHubUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,51 @@
+package tn.esprithub.server.github.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the latency of every GitHub API call (up to the response headers) and the number
+ * of calls in flight, which is how many pooled connections or HTTP/2 streams are in use.
+ */
+public class InstrumentedGitHubConnector extends GitHubConnectorDecorator {
+    
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    public InstrumentedGitHubConnector(GitHubConnector delegate, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("github.client.in-flight", inFlight, AtomicInteger::get)
+                .description("GitHub API calls currently holding a connection")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        inFlight.incrementAndGet();
+        try {
+            GitHubConnectorResponse response = delegate.send(request);
+            status = Integer.toString(response.statusCode());
+            return response;
+        } finally {
+            inFlight.decrementAndGet();
+            Timer.builder("github.client.requests")
+                    .description("GitHub API call latency")
+                    .tag("method", request.method())
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package tn.esprithub.server.github.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Admits GitHub calls against the rate-limit budgets GitHub reports, instead of letting them
+ * fail once a budget is spent.
+ * <ul>
+ *   <li>Budgets are tracked per credential and per rate-limit resource (core, search, graphql)
+ *   from {@code X-RateLimit-Remaining}/{@code X-RateLimit-Reset}. A call whose budget is spent
+ *   waits for the reset; other credentials are not held up.</li>
+ *   <li>Waiting calls are dispatched by {@link GitHubRequestPriority}, then in arrival order.
+ *   Background calls stop while less than the reserved share of a budget is left.</li>
+ *   <li>A primary limit (403/429 with {@code X-RateLimit-Remaining: 0}) only holds that
+ *   credential until its reset.</li>
+ *   <li>Each credential's concurrency adapts AIMD-style: halved and paused when GitHub signals
+ *   a secondary rate limit (429, or 403 with {@code Retry-After}), raised by one after a window
+ *   of successful calls. All credentials together stay under {@code maxConcurrency}.</li>
+ * </ul>
+ * A call that cannot be admitted within its priority's maximum wait fails with
+ * {@link GitHubBudgetExhaustedException}.
+ */
+@Slf4j
+public class RateLimitedGitHubConnector extends GitHubConnectorDecorator {
+    
+    private static final int SWEEP_EVERY = 1024;
+    private static final Duration DEFAULT_SECONDARY_PAUSE = Duration.ofMinutes(1);
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeSet<Waiter> waiters = new TreeSet<>();
+    private final int[] waitingByPriority = new int[GitHubRequestPriority.values().length];
+    private final Map<String, Budget> budgets = new HashMap<>();
+    private final Duration interactiveMaxWait;
+    private final Duration backgroundMaxWait;
+    private final double backgroundReserve;
+    private final int initialConcurrency;
+    private final int maxConcurrency;
+    private int inFlight;
+    private long sequence;
+    private long releases;
+    
+    public RateLimitedGitHubConnector(GitHubConnector delegate, int initialConcurrency, int maxConcurrency,
+                                      double backgroundReserve, Duration interactiveMaxWait,
+                                      Duration backgroundMaxWait, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.initialConcurrency = initialConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.backgroundReserve = backgroundReserve;
+        this.interactiveMaxWait = interactiveMaxWait;
+        this.backgroundMaxWait = backgroundMaxWait;
+        
+        for (GitHubRequestPriority priority : GitHubRequestPriority.values()) {
+            Gauge.builder("github.scheduler.queue.depth", this, s -> s.locked(() -> s.waitingByPriority[priority.ordinal()]))
+                    .description("GitHub calls waiting for rate-limit budget or a concurrency slot")
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("github.scheduler.in-flight", this, s -> s.locked(() -> s.inFlight))
+                .register(meterRegistry);
+        Gauge.builder("github.scheduler.concurrency.limit", this, s -> s.locked(s::lowestConcurrencyLimit))
+                .description("Lowest adaptive limit on concurrent GitHub calls among tracked credentials")
+                .register(meterRegistry);
+        Gauge.builder("github.scheduler.budget.remaining", this, s -> s.locked(s::lowestRemaining))
+                .description("Lowest rate-limit budget left among tracked credentials")
+                .register(meterRegistry);
+        Gauge.builder("github.scheduler.budget.exhausted", this, s -> s.locked(s::exhaustedBudgets))
+                .description("Credentials currently waiting for a rate-limit reset or pause")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        Budget budget = acquire(budgetKey(request), GitHubRequestPriority.current());
+        GitHubConnectorResponse response = null;
+        try {
+            response = delegate.send(request);
+            return response;
+        } finally {
+            release(budget, response);
+        }
+    }
+    
+    private Budget acquire(String key, GitHubRequestPriority priority) throws IOException {
+        long deadline = System.nanoTime() + (priority == GitHubRequestPriority.INTERACTIVE
+                ? interactiveMaxWait : backgroundMaxWait).toNanos();
+        
+        lock.lock();
+        try {
+            Budget budget = budgets.computeIfAbsent(key, k -> new Budget(initialConcurrency));
+            Waiter waiter = new Waiter(priority, sequence++, budget, lock.newCondition());
+            waiters.add(waiter);
+            budget.waiting++;
+            waitingByPriority[priority.ordinal()]++;
+            
+            try {
+                while (true) {
+                    dispatch();
+                    if (waiter.granted) {
+                        return budget;
+                    }
+                    long now = System.nanoTime();
+                    if (now >= deadline) {
+                        throw new GitHubBudgetExhaustedException("GitHub rate limit budget exhausted, retry in "
+                                + Math.max(1, budget.millisUntilAvailable() / 1000) + "s");
+                    }
+                    // Woken by dispatch() when granted, or when this budget resets or unpauses
+                    long untilAvailable = budget.admits(priority, backgroundReserve) ? 0 : budget.millisUntilReset();
+                    long wait = untilAvailable > 0
+                            ? Math.min(deadline - now, TimeUnit.MILLISECONDS.toNanos(untilAvailable))
+                            : deadline - now;
+                    waiter.condition.awaitNanos(wait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for GitHub rate limit budget");
+            } finally {
+                if (!waiter.granted) {
+                    waiters.remove(waiter);
+                    waitingByPriority[priority.ordinal()]--;
+                    budget.waiting--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Grants slots in priority order; a waiter whose own budget is spent does not block the others
+    private void dispatch() {
+        Iterator<Waiter> iterator = waiters.iterator();
+        while (iterator.hasNext() && inFlight < maxConcurrency) {
+            Waiter waiter = iterator.next();
+            if (!waiter.budget.admits(waiter.priority, backgroundReserve)) {
+                continue;
+            }
+            iterator.remove();
+            waitingByPriority[waiter.priority.ordinal()]--;
+            waiter.granted = true;
+            waiter.budget.waiting--;
+            waiter.budget.inFlight++;
+            inFlight++;
+            waiter.condition.signal();
+        }
+    }
+    
+    private void release(Budget budget, GitHubConnectorResponse response) {
+        lock.lock();
+        try {
+            budget.inFlight--;
+            inFlight--;
+            if (response != null) {
+                record(budget, response);
+            }
+            if (++releases % SWEEP_EVERY == 0) {
+                budgets.values().removeIf(Budget::isIdle);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void record(Budget budget, GitHubConnectorResponse response) {
+        int status = response.statusCode();
+        Integer remaining = parse(response.header("X-RateLimit-Remaining"));
+        Integer limit = parse(response.header("X-RateLimit-Limit"));
+        Integer reset = parse(response.header("X-RateLimit-Reset"));
+        if (remaining != null && reset != null) {
+            budget.update(remaining, limit, reset * 1000L);
+        }
+        
+        Integer retryAfter = parse(response.header("Retry-After"));
+        boolean limited = status == 403 || status == 429;
+        if (limited && retryAfter == null && Integer.valueOf(0).equals(remaining)) {
+            // Primary limit: the budget update above already holds this credential until the reset
+            log.warn("GitHub rate limit budget spent (status {}), credential waits for the reset", status);
+        } else if (status == 429 || (status == 403 && retryAfter != null)) {
+            long pause = retryAfter != null ? retryAfter * 1000L : DEFAULT_SECONDARY_PAUSE.toMillis();
+            budget.pausedUntilMillis = Math.max(budget.pausedUntilMillis, System.currentTimeMillis() + pause);
+            budget.concurrencyLimit = Math.max(1, budget.concurrencyLimit / 2);
+            budget.successesSinceIncrease = 0;
+            log.warn("GitHub secondary rate limit hit (status {}), credential concurrency lowered to {}",
+                    status, budget.concurrencyLimit);
+        } else if (status < 400 && ++budget.successesSinceIncrease >= budget.concurrencyLimit) {
+            budget.concurrencyLimit = Math.min(maxConcurrency, budget.concurrencyLimit + 1);
+            budget.successesSinceIncrease = 0;
+        }
+    }
+    
+    private int lowestConcurrencyLimit() {
+        return budgets.values().stream()
+                .mapToInt(budget -> budget.concurrencyLimit)
+                .min()
+                .orElse(initialConcurrency);
+    }
+    
+    private int lowestRemaining() {
+        long now = System.currentTimeMillis();
+        return budgets.values().stream()
+                .filter(budget -> budget.remaining >= 0 && now < budget.resetAtMillis)
+                .mapToInt(budget -> budget.remaining)
+                .min()
+                .orElse(-1);
+    }
+    
+    private int exhaustedBudgets() {
+        return (int) budgets.values().stream().filter(budget -> budget.millisUntilAvailable() > 0).count();
+    }
+    
+    private double locked(IntSupplier supplier) {
+        lock.lock();
+        try {
+            return supplier.getAsInt();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private static Integer parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private static String budgetKey(GitHubConnectorRequest request) {
+        String path = request.url().getPath();
+        String resource = path.startsWith("/search/") ? "search" : path.startsWith("/graphql") ? "graphql" : "core";
+        String credential = String.valueOf(request.header("Authorization"));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return resource + ":" + HexFormat.of().formatHex(digest.digest(credential.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private static final class Budget {
+        
+        private int limit = -1;
+        private int remaining = -1;
+        private long resetAtMillis;
+        private long pausedUntilMillis;
+        private int inFlight;
+        private int waiting;
+        private int concurrencyLimit;
+        private int successesSinceIncrease;
+        
+        Budget(int concurrencyLimit) {
+            this.concurrencyLimit = concurrencyLimit;
+        }
+        
+        void update(int remaining, Integer limit, long resetAtMillis) {
+            // Responses can arrive out of order; within a window the lowest count is the latest
+            if (resetAtMillis != this.resetAtMillis || remaining < this.remaining) {
+                this.remaining = remaining;
+            }
+            this.resetAtMillis = resetAtMillis;
+            if (limit != null) {
+                this.limit = limit;
+            }
+        }
+        
+        boolean admits(GitHubRequestPriority priority, double backgroundReserve) {
+            long now = System.currentTimeMillis();
+            if (now < pausedUntilMillis || inFlight >= concurrencyLimit) {
+                return false;
+            }
+            if (remaining < 0 || now >= resetAtMillis) {
+                // Unknown or already reset: probe with one call at a time until GitHub reports the budget
+                return remaining >= 0 || inFlight == 0;
+            }
+            int reserve = priority == GitHubRequestPriority.BACKGROUND && limit > 0
+                    ? (int) Math.ceil(limit * backgroundReserve) : 0;
+            return remaining - inFlight > reserve;
+        }
+        
+        long millisUntilAvailable() {
+            long now = System.currentTimeMillis();
+            if (now < pausedUntilMillis) {
+                return pausedUntilMillis - now;
+            }
+            if (remaining >= 0 && now < resetAtMillis && remaining - inFlight <= 0) {
+                return resetAtMillis - now;
+            }
+            return 0;
+        }
+        
+        long millisUntilReset() {
+            return Math.max(0, Math.max(pausedUntilMillis, resetAtMillis) - System.currentTimeMillis());
+        }
+        
+        boolean isIdle() {
+            return inFlight == 0 && waiting == 0 && System.currentTimeMillis() >= Math.max(resetAtMillis, pausedUntilMillis);
+        }
+    }
+    
+    private static final class Waiter implements Comparable<Waiter> {
+        
+        private final GitHubRequestPriority priority;
+        private final long sequence;
+        private final Budget budget;
+        private final Condition condition;
+        private boolean granted;
+        
+        Waiter(GitHubRequestPriority priority, long sequence, Budget budget, Condition condition) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.budget = budget;
+            this.condition = condition;
+        }
+        
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package tn.esprithub.server.github.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a slow or failing GitHub from spreading into the rest of the server.
+ * <ul>
+ *   <li>Bulkhead: at most {@code maxConcurrentCalls} calls may be on the wire to GitHub at once;
+ *   further calls wait up to {@code maxWait} and are then rejected. This layer sits below the
+ *   rate-limit scheduler, so calls queued for budget never hold a slot.</li>
+ *   <li>Circuit breaker: over the last {@code windowSize} calls, once at least
+ *   {@code minimumCalls} were made and the share of I/O errors and 5xx responses reaches
+ *   {@code failureRateThreshold}, calls fail immediately for {@code openDuration}. After that
+ *   {@code halfOpenCalls} trial calls decide whether to close or reopen.</li>
+ * </ul>
+ * Both fail with {@link GitHubUnavailableException}; the ETag cache above this layer answers
+ * such failures from cached data when it has any.
+ */
+@Slf4j
+public class ResilientGitHubConnector extends GitHubConnectorDecorator {
+    
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+    
+    private final Semaphore bulkhead;
+    private final Duration maxWait;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter circuitRejections;
+    private final Counter bulkheadRejections;
+    
+    public ResilientGitHubConnector(GitHubConnector delegate, int maxConcurrentCalls, Duration maxWait,
+                                    double failureRateThreshold, int windowSize, int minimumCalls,
+                                    Duration openDuration, int halfOpenCalls, MeterRegistry meterRegistry) {
+        super(delegate);
+        this.bulkhead = new Semaphore(maxConcurrentCalls, true);
+        this.maxWait = maxWait;
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        
+        this.successes = calls(meterRegistry, "success");
+        this.failures = calls(meterRegistry, "failure");
+        this.circuitRejections = calls(meterRegistry, "circuit_open");
+        this.bulkheadRejections = calls(meterRegistry, "bulkhead_full");
+        for (State candidate : State.values()) {
+            Gauge.builder("github.circuit.state", this, c -> c.getState() == candidate ? 1 : 0)
+                    .description("1 for the current state of the GitHub circuit breaker")
+                    .tag("state", candidate.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("github.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free slots for concurrent GitHub calls")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public GitHubConnectorResponse send(GitHubConnectorRequest request) throws IOException {
+        if (!acquirePermission()) {
+            circuitRejections.increment();
+            throw new GitHubUnavailableException("GitHub circuit breaker is open", Duration.ofNanos(openDurationNanos));
+        }
+        
+        boolean admitted;
+        try {
+            admitted = bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            releasePermission();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a GitHub call slot");
+        }
+        if (!admitted) {
+            releasePermission();
+            bulkheadRejections.increment();
+            throw new GitHubUnavailableException("Too many concurrent GitHub calls", Duration.ofSeconds(1));
+        }
+        
+        try {
+            GitHubConnectorResponse response = delegate.send(request);
+            onResult(response.statusCode() < 500);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            onResult(false);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+    
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean acquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+                transition(State.HALF_OPEN);
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (halfOpenPermits == 0) {
+                        yield false;
+                    }
+                    halfOpenPermits--;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Gives back a half-open trial slot for a call that never reached GitHub
+    private void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+                halfOpenPermits++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void onResult(boolean success) {
+        (success ? successes : failures).increment();
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    record(success);
+                    if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+                        transition(State.OPEN);
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (!success) {
+                        transition(State.OPEN);
+                    } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                        transition(State.CLOSED);
+                    }
+                }
+                case OPEN -> {
+                    // Late result of a call admitted before the circuit opened
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void record(boolean success) {
+        if (windowCount == window.length) {
+            if (!window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = success;
+        if (!success) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+    
+    private void transition(State next) {
+        log.warn("GitHub circuit breaker {} -> {} ({} failures in last {} calls)",
+                state, next, windowFailures, windowCount);
+        state = next;
+        switch (next) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                windowIndex = 0;
+                windowCount = 0;
+                windowFailures = 0;
+            }
+        }
+    }
+    
+    private static Counter calls(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("github.circuit.calls")
+                .description("GitHub calls by circuit breaker outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -2,13 +2,19 @@ package tn.esprithub.server.github.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tn.esprithub.server.common.dto.ApiResponse;
+import tn.esprithub.server.github.dto.GitHubLinkJob;
 import tn.esprithub.server.github.dto.GitHubLinkRequest;
 import tn.esprithub.server.github.dto.GitHubUserInfo;
+import tn.esprithub.server.github.service.IGitHubLinkJobService;
 import tn.esprithub.server.github.service.IGitHubService;
 import tn.esprithub.server.security.UserPrincipal;
 
@@ -18,19 +24,42 @@ import tn.esprithub.server.security.UserPrincipal;
 public class GitHubController {
     
     private final IGitHubService gitHubService;
+    private final IGitHubLinkJobService gitHubLinkJobService;
     
     @PostMapping("/link")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<Void>> linkGitHubAccount(
+    public ResponseEntity<ApiResponse<GitHubLinkJob>> linkGitHubAccount(
             @Valid @RequestBody GitHubLinkRequest request,
             @AuthenticationPrincipal UserPrincipal userPrincipal) {
-        try {
-            gitHubService.linkGitHubAccount(userPrincipal.getEmail(), request.getGithubToken());
-            return ResponseEntity.ok(ApiResponse.success("GitHub account linked successfully", null));
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error(e.getMessage()));
-        }
+        GitHubLinkJob job = gitHubLinkJobService.submit(userPrincipal.getId(), userPrincipal.getEmail(),
+                request.getGithubToken());
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/jobs/{jobId}")
+                        .buildAndExpand(job.getJobId())
+                        .toUri())
+                .body(ApiResponse.success("GitHub account linking started", job));
+    }
+    
+    @GetMapping("/link/jobs/{jobId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<GitHubLinkJob>> getLinkJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return gitHubLinkJobService.getJob(jobId, userPrincipal.getId())
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("GitHub link job not found")));
+    }
+    
+    @GetMapping(value = "/link/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SseEmitter> streamLinkJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return gitHubLinkJobService.subscribe(jobId, userPrincipal.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
     
     @PostMapping("/validate-token")
@@ -0,0 +1,73 @@
+package tn.esprithub.server.github.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tn.esprithub.server.common.dto.ApiResponse;
+import tn.esprithub.server.github.dto.ProvisioningJobSummary;
+import tn.esprithub.server.github.dto.RepositoryProvisioningRequest;
+import tn.esprithub.server.github.service.IGitHubProvisioningService;
+import tn.esprithub.server.security.UserPrincipal;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/github/provisioning")
+@PreAuthorize("hasRole('TEACHER')")
+@RequiredArgsConstructor
+public class GitHubProvisioningController {
+    
+    private final IGitHubProvisioningService provisioningService;
+    
+    @PostMapping("/jobs")
+    public ResponseEntity<ApiResponse<ProvisioningJobSummary>> provision(
+            @Valid @RequestBody RepositoryProvisioningRequest request,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        ProvisioningJobSummary job = provisioningService.submit(userPrincipal.getId(), request);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{jobId}")
+                        .buildAndExpand(job.getJobId())
+                        .toUri())
+                .body(ApiResponse.success("Repository provisioning started", job));
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<ProvisioningJobSummary>> getJob(
+            @PathVariable UUID jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return provisioningService.getJob(jobId, userPrincipal.getId())
+                .map(job -> ResponseEntity.ok(ApiResponse.success(job)))
+                .orElseGet(GitHubProvisioningController::notFound);
+    }
+    
+    @PostMapping("/jobs/{jobId}/retry")
+    public ResponseEntity<ApiResponse<ProvisioningJobSummary>> retryFailed(
+            @PathVariable UUID jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return provisioningService.retryFailed(jobId, userPrincipal.getId())
+                .map(job -> ResponseEntity.accepted().body(ApiResponse.success("Retrying failed repositories", job)))
+                .orElseGet(GitHubProvisioningController::notFound);
+    }
+    
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(
+            @PathVariable UUID jobId,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return provisioningService.subscribe(jobId, userPrincipal.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    private static ResponseEntity<ApiResponse<ProvisioningJobSummary>> notFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("Provisioning job not found"));
+    }
+}
@@ -0,0 +1,50 @@
+package tn.esprithub.server.github.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tn.esprithub.server.common.dto.ApiResponse;
+import tn.esprithub.server.github.dto.MirroredRepositoryDto;
+import tn.esprithub.server.github.service.IGitHubRepositoryMirrorService;
+import tn.esprithub.server.security.UserPrincipal;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository metadata served from the local mirror, most recently pushed first.
+ */
+@RestController
+@RequestMapping("/github/repositories")
+@RequiredArgsConstructor
+public class GitHubRepositoryController {
+    
+    private final IGitHubRepositoryMirrorService repositoryMirror;
+    
+    @GetMapping
+    @PreAuthorize("hasRole('TEACHER') or hasRole('CHIEF') or hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<MirroredRepositoryDto>>> findRepositories(
+            @RequestParam(required = false) String owner,
+            @RequestParam(required = false) String assignment,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant pushedAfter,
+            Pageable pageable) {
+        return ResponseEntity.ok(ApiResponse.success(repositoryMirror.find(owner, assignment, pushedAfter, pageable)));
+    }
+    
+    @GetMapping("/mine")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ApiResponse<List<MirroredRepositoryDto>>> findMyRepositories(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant pushedAfter,
+            Pageable pageable,
+            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return ResponseEntity.ok(ApiResponse.success(
+                repositoryMirror.findForUser(userPrincipal.getId(), pushedAfter, pageable)));
+    }
+}
@@ -0,0 +1,60 @@
+package tn.esprithub.server.github.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tn.esprithub.server.common.dto.ApiResponse;
+import tn.esprithub.server.github.service.IGitHubWebhookService;
+
+import java.io.IOException;
+
+/**
+ * Receives GitHub webhook deliveries. GitHub authenticates with the HMAC signature of the
+ * body rather than a JWT, so this path is open in {@code SecurityConfig}.
+ */
+@RestController
+@RequestMapping("/github/webhooks")
+@RequiredArgsConstructor
+public class GitHubWebhookController {
+    
+    private static final int MAX_DELIVERY_ID_LENGTH = 64;
+    // GitHub caps webhook payloads at 25 MB; this path is open, so larger bodies are not read
+    private static final int MAX_PAYLOAD_BYTES = 25 * 1024 * 1024;
+    
+    private final IGitHubWebhookService gitHubWebhookService;
+    
+    @PostMapping
+    public ResponseEntity<ApiResponse<Void>> receive(
+            @RequestHeader(value = "X-GitHub-Event", required = false) String eventType,
+            @RequestHeader(value = "X-GitHub-Delivery", required = false) String deliveryId,
+            @RequestHeader(value = "X-Hub-Signature-256", required = false) String signature,
+            HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > MAX_PAYLOAD_BYTES) {
+            return payloadTooLarge();
+        }
+        // Content-Length is absent on chunked requests, so the read is capped as well
+        byte[] payload = request.getInputStream().readNBytes(MAX_PAYLOAD_BYTES + 1);
+        if (payload.length > MAX_PAYLOAD_BYTES) {
+            return payloadTooLarge();
+        }
+        if (!gitHubWebhookService.isSignatureValid(payload, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Invalid webhook signature"));
+        }
+        if (eventType == null || deliveryId == null || deliveryId.length() > MAX_DELIVERY_ID_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Missing or invalid GitHub webhook headers"));
+        }
+        
+        boolean queued = gitHubWebhookService.accept(eventType, deliveryId, payload);
+        return ResponseEntity.accepted()
+                .body(ApiResponse.success(queued ? "Webhook accepted" : "Webhook event ignored", null));
+    }
+    
+    private static ResponseEntity<ApiResponse<Void>> payloadTooLarge() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(ApiResponse.error("Webhook payload exceeds 25 MB"));
+    }
+}
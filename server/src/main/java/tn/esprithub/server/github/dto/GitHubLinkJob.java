@@ -0,0 +1,22 @@
+package tn.esprithub.server.github.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.esprithub.server.common.enums.JobStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubLinkJob {
+    private String jobId;
+    private JobStatus status;
+    private String githubUsername;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
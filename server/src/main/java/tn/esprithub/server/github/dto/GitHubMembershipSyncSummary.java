@@ -0,0 +1,26 @@
+package tn.esprithub.server.github.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubMembershipSyncSummary {
+    private String organization;
+    private String team;
+    private int students;
+    private int teachers;
+    private int currentMembers;
+    private int currentMaintainers;
+    private long added;
+    private long roleChanged;
+    private long removed;
+    private long pendingInvitations;
+    private long removalsSkipped;
+    private long failed;
+    private long durationMs;
+}
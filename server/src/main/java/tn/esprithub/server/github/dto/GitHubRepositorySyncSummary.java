@@ -0,0 +1,19 @@
+package tn.esprithub.server.github.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubRepositorySyncSummary {
+    private long owners;
+    private long repositories;
+    private long updated;
+    private long deleted;
+    private long failedOwners;
+    private long durationMs;
+}
@@ -0,0 +1,22 @@
+package tn.esprithub.server.github.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubRevalidationSummary {
+    private boolean resumed;
+    private long checked;
+    private long invalidated;
+    private long failed;
+    private long durationMs;
+    private double p50Ms;
+    private double p95Ms;
+    private double p99Ms;
+    private double maxMs;
+}
@@ -0,0 +1,20 @@
+package tn.esprithub.server.github.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubSyncSummary {
+    private String jobName;
+    private boolean resumed;
+    private long processed;
+    private long updated;
+    private long failed;
+    private long durationMs;
+    private double usersPerSecond;
+}
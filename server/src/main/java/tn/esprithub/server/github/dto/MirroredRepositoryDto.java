@@ -0,0 +1,25 @@
+package tn.esprithub.server.github.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MirroredRepositoryDto {
+    private Long id;
+    private String owner;
+    private String name;
+    private String fullName;
+    private String defaultBranch;
+    private Instant pushedAt;
+    private Integer sizeKb;
+    private String language;
+    private String assignment;
+    private Instant syncedAt;
+}
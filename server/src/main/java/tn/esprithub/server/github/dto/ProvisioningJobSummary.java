@@ -0,0 +1,33 @@
+package tn.esprithub.server.github.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.esprithub.server.common.enums.JobStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvisioningJobSummary {
+    private UUID jobId;
+    private JobStatus status;
+    private String organization;
+    private String assignment;
+    private long total;
+    private long pending;
+    private long succeeded;
+    private long failed;
+    private String error;
+    private int concurrency;
+    // Pace the job is throttled to, and what it achieved so far
+    private double targetReposPerMinute;
+    private double achievedReposPerMinute;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant completedAt;
+}
@@ -0,0 +1,41 @@
+package tn.esprithub.server.github.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepositoryProvisioningRequest {
+    
+    @NotBlank(message = "Organization is required")
+    private String organization;
+    
+    @NotBlank(message = "Template repository is required")
+    @Pattern(regexp = "[\\w.-]+/[\\w.-]+", message = "Template repository must be owner/name")
+    private String templateRepository;
+    
+    // Repositories are named <assignment>-<student GitHub login>
+    @NotBlank(message = "Assignment is required")
+    @Pattern(regexp = "[\\w.-]{1,60}", message = "Assignment may only contain letters, digits, '.', '-' and '_'")
+    private String assignment;
+    
+    @NotEmpty(message = "At least one student is required")
+    @Size(max = 2000, message = "At most 2000 students per job")
+    private List<Long> studentIds;
+    
+    @Builder.Default
+    private boolean privateRepositories = true;
+    
+    @Builder.Default
+    private boolean protectDefaultBranch = true;
+}
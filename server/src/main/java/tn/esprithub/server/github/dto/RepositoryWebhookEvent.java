@@ -0,0 +1,10 @@
+package tn.esprithub.server.github.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The {@code repository} object of a push or repository webhook delivery, with the event that
+ * carried it.
+ */
+public record RepositoryWebhookEvent(String eventType, String action, JsonNode repository) {
+}
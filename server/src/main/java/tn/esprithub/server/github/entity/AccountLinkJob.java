@@ -0,0 +1,49 @@
+package tn.esprithub.server.github.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import tn.esprithub.server.common.enums.JobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A user's request to link a GitHub account, kept so any node can answer polls and
+ * subscriptions for it. The token itself is never stored here.
+ */
+@Entity
+@Table(name = "github_link_jobs",
+       indexes = {
+           @Index(name = "idx_github_link_jobs_user_id", columnList = "userId"),
+           @Index(name = "idx_github_link_jobs_created_at", columnList = "createdAt")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountLinkJob {
+    
+    @Id
+    private UUID id;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+    
+    private String githubUsername;
+    
+    @Column(length = 500)
+    private String error;
+    
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,54 @@
+package tn.esprithub.server.github.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A GitHub webhook delivery as received. The delivery GUID is the key, so a delivery GitHub
+ * sends again is stored once. Rows are written in multi-row batches by
+ * {@code GitHubWebhookServiceImpl}, not through JPA.
+ */
+@Entity
+@Table(name = "github_webhook_events",
+       indexes = {
+           @Index(name = "idx_github_webhook_events_repository", columnList = "repositoryFullName, receivedAt"),
+           @Index(name = "idx_github_webhook_events_received_at", columnList = "receivedAt")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubWebhookEvent {
+    
+    @Id
+    @Column(length = 64)
+    private String deliveryId;
+    
+    @Column(nullable = false, length = 32)
+    private String eventType;
+    
+    @Column(length = 64)
+    private String action;
+    
+    private Long repositoryId;
+    
+    private String repositoryFullName;
+    
+    private String organization;
+    
+    private String sender;
+    
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+    
+    @Column(nullable = false)
+    private Instant receivedAt;
+    
+    @Column(nullable = false)
+    private Instant persistedAt;
+}
@@ -0,0 +1,57 @@
+package tn.esprithub.server.github.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Local copy of a GitHub repository's metadata, for linked users' own repositories and the
+ * managed organizations'. Keyed by GitHub's repository id, so renames and transfers update
+ * the row in place. Rows are written by {@code GitHubRepositoryMirrorServiceImpl} through
+ * JDBC upserts, not through JPA.
+ */
+@Entity
+@Table(name = "github_repositories",
+       indexes = {
+           @Index(name = "idx_github_repositories_owner_pushed_at", columnList = "ownerLogin, pushedAt"),
+           @Index(name = "idx_github_repositories_assignment_pushed_at", columnList = "assignment, pushedAt"),
+           @Index(name = "idx_github_repositories_pushed_at", columnList = "pushedAt")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MirroredRepository {
+    
+    @Id
+    private Long id;
+    
+    // Lower case, GitHub logins are case-insensitive
+    @Column(nullable = false)
+    private String ownerLogin;
+    
+    @Column(nullable = false)
+    private String name;
+    
+    @Column(nullable = false)
+    private String fullName;
+    
+    private String defaultBranch;
+    
+    // Null until the first push
+    private Instant pushedAt;
+    
+    private Integer sizeKb;
+    
+    private String language;
+    
+    // Set for repositories created by a provisioning job; stands in for the course
+    private String assignment;
+    
+    @Column(nullable = false)
+    private Instant syncedAt;
+}
@@ -0,0 +1,56 @@
+package tn.esprithub.server.github.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.esprithub.server.common.enums.JobStatus;
+import tn.esprithub.server.common.enums.ProvisioningStep;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "provisioning_items",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"jobId", "studentId"}),
+       indexes = @Index(name = "idx_provisioning_items_job_status", columnList = "jobId, status"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvisioningItem {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "provisioning_item_seq")
+    @SequenceGenerator(name = "provisioning_item_seq", sequenceName = "provisioning_item_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false)
+    private UUID jobId;
+    
+    @Column(nullable = false)
+    private Long studentId;
+    
+    private String githubUsername;
+    
+    @Column(nullable = false)
+    private String repositoryName;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ProvisioningStep step;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+    
+    @Builder.Default
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(length = 500)
+    private String error;
+    
+    private Instant updatedAt;
+}
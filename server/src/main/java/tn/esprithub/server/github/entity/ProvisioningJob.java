@@ -0,0 +1,70 @@
+package tn.esprithub.server.github.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import tn.esprithub.server.common.enums.JobStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A teacher's request to create one repository per student from a template. Per-student
+ * progress lives in {@link ProvisioningItem}.
+ */
+@Entity
+@Table(name = "provisioning_jobs",
+       indexes = {
+           @Index(name = "idx_provisioning_jobs_teacher_id", columnList = "teacherId"),
+           @Index(name = "idx_provisioning_jobs_status", columnList = "status")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvisioningJob {
+    
+    @Id
+    private UUID id;
+    
+    @Column(nullable = false)
+    private Long teacherId;
+    
+    @Column(nullable = false)
+    private String organization;
+    
+    // owner/name of the template repository
+    @Column(nullable = false)
+    private String templateRepository;
+    
+    @Column(nullable = false, length = 60)
+    private String assignment;
+    
+    @Column(nullable = false)
+    private Boolean privateRepositories;
+    
+    @Column(nullable = false)
+    private Boolean protectDefaultBranch;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+    
+    private String error;
+    
+    // Node running the job; another node may take it over once the lease has expired
+    @Column(length = 64)
+    private String claimedBy;
+    
+    private Instant leaseExpiresAt;
+    
+    @CreationTimestamp
+    private Instant createdAt;
+    
+    private Instant startedAt;
+    
+    private Instant completedAt;
+}
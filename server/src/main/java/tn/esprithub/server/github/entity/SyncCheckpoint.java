@@ -0,0 +1,39 @@
+package tn.esprithub.server.github.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of a keyset-paged background job over the users table. {@code lastUserId} is the
+ * highest id fully processed by the current run; zero means the next run starts from scratch.
+ */
+@Entity
+@Table(name = "sync_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCheckpoint {
+    
+    @Id
+    @Column(length = 64)
+    private String jobName;
+    
+    @Column(nullable = false)
+    private Long lastUserId;
+    
+    private Instant runStartedAt;
+    
+    private Instant lastCompletedAt;
+    
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
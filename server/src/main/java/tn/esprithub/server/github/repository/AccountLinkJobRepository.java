@@ -0,0 +1,36 @@
+package tn.esprithub.server.github.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprithub.server.github.entity.AccountLinkJob;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface AccountLinkJobRepository extends JpaRepository<AccountLinkJob, UUID> {
+    
+    Optional<AccountLinkJob> findByIdAndUserId(UUID id, Long userId);
+    
+    /**
+     * Fails jobs that were still unfinished at {@code cutoff}, which only happens when the node
+     * running them went away.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE AccountLinkJob j SET j.status = tn.esprithub.server.common.enums.JobStatus.FAILED, " +
+           "j.error = :error, j.completedAt = :now WHERE j.createdAt < :cutoff " +
+           "AND j.status IN (tn.esprithub.server.common.enums.JobStatus.PENDING, tn.esprithub.server.common.enums.JobStatus.RUNNING)")
+    int failUnfinishedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("error") String error,
+                             @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AccountLinkJob j WHERE j.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
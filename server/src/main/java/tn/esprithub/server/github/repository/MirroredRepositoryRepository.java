@@ -0,0 +1,26 @@
+package tn.esprithub.server.github.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import tn.esprithub.server.github.entity.MirroredRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+// Each query is served by one of the (column, pushed_at) indexes on github_repositories
+@Repository
+public interface MirroredRepositoryRepository extends JpaRepository<MirroredRepository, Long> {
+    
+    List<MirroredRepository> findByOwnerLoginOrderByPushedAtDesc(String ownerLogin, Pageable pageable);
+    
+    List<MirroredRepository> findByOwnerLoginAndPushedAtAfterOrderByPushedAtDesc(String ownerLogin, Instant pushedAfter,
+                                                                                 Pageable pageable);
+    
+    List<MirroredRepository> findByAssignmentOrderByPushedAtDesc(String assignment, Pageable pageable);
+    
+    List<MirroredRepository> findByAssignmentAndPushedAtAfterOrderByPushedAtDesc(String assignment, Instant pushedAfter,
+                                                                                 Pageable pageable);
+    
+    List<MirroredRepository> findByPushedAtAfterOrderByPushedAtDesc(Instant pushedAfter, Pageable pageable);
+}
@@ -0,0 +1,41 @@
+package tn.esprithub.server.github.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprithub.server.common.enums.JobStatus;
+import tn.esprithub.server.github.entity.ProvisioningItem;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ProvisioningItemRepository extends JpaRepository<ProvisioningItem, Long> {
+    
+    List<ProvisioningItem> findByJobIdAndStatusIn(UUID jobId, Collection<JobStatus> statuses);
+    
+    @Query("SELECT i.status AS status, COUNT(i) AS count FROM ProvisioningItem i " +
+           "WHERE i.jobId = :jobId GROUP BY i.status")
+    List<StatusCount> countByStatus(@Param("jobId") UUID jobId);
+    
+    /**
+     * Puts failed items back in the queue; their step is kept, so a retry resumes after the
+     * last step that succeeded.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProvisioningItem i SET i.status = tn.esprithub.server.common.enums.JobStatus.PENDING, " +
+           "i.attempts = 0, i.error = NULL WHERE i.jobId = :jobId " +
+           "AND i.status = tn.esprithub.server.common.enums.JobStatus.FAILED AND i.githubUsername IS NOT NULL")
+    int resetFailed(@Param("jobId") UUID jobId);
+    
+    interface StatusCount {
+        JobStatus getStatus();
+        
+        long getCount();
+    }
+}
@@ -0,0 +1,52 @@
+package tn.esprithub.server.github.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprithub.server.common.enums.JobStatus;
+import tn.esprithub.server.github.entity.ProvisioningJob;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ProvisioningJobRepository extends JpaRepository<ProvisioningJob, UUID> {
+    
+    Optional<ProvisioningJob> findByIdAndTeacherId(UUID id, Long teacherId);
+    
+    List<ProvisioningJob> findByStatusIn(Collection<JobStatus> statuses);
+    
+    /**
+     * Takes an unfinished job for {@code owner} unless another node holds an unexpired lease
+     * on it. Returns 0 when the job was not claimed.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProvisioningJob j SET j.status = tn.esprithub.server.common.enums.JobStatus.RUNNING, " +
+           "j.claimedBy = :owner, j.leaseExpiresAt = :leaseExpiresAt WHERE j.id = :id " +
+           "AND j.status IN (tn.esprithub.server.common.enums.JobStatus.PENDING, tn.esprithub.server.common.enums.JobStatus.RUNNING) " +
+           "AND (j.claimedBy IS NULL OR j.claimedBy = :owner OR j.leaseExpiresAt < :now)")
+    int claim(@Param("id") UUID id, @Param("owner") String owner, @Param("now") Instant now,
+              @Param("leaseExpiresAt") Instant leaseExpiresAt);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProvisioningJob j SET j.leaseExpiresAt = :leaseExpiresAt WHERE j.id = :id AND j.claimedBy = :owner")
+    int renewLease(@Param("id") UUID id, @Param("owner") String owner, @Param("leaseExpiresAt") Instant leaseExpiresAt);
+    
+    /**
+     * Gives up a claim on a job that could not be started, leaving it PENDING for the next
+     * node that claims it.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProvisioningJob j SET j.status = tn.esprithub.server.common.enums.JobStatus.PENDING, " +
+           "j.claimedBy = NULL, j.leaseExpiresAt = NULL WHERE j.id = :id AND j.claimedBy = :owner")
+    int release(@Param("id") UUID id, @Param("owner") String owner);
+}
@@ -0,0 +1,9 @@
+package tn.esprithub.server.github.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import tn.esprithub.server.github.entity.SyncCheckpoint;
+
+@Repository
+public interface SyncCheckpointRepository extends JpaRepository<SyncCheckpoint, String> {
+}
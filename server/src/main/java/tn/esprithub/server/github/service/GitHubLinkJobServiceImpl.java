@@ -0,0 +1,238 @@
+package tn.esprithub.server.github.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprithub.server.common.enums.JobStatus;
+import tn.esprithub.server.common.exception.ServiceUnavailableException;
+import tn.esprithub.server.github.dto.GitHubLinkJob;
+import tn.esprithub.server.github.dto.GitHubUserInfo;
+import tn.esprithub.server.github.entity.AccountLinkJob;
+import tn.esprithub.server.github.repository.AccountLinkJobRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs GitHub account linking off the request thread. Jobs execute on a bounded pool and are
+ * stored in the database, so any node can answer a poll or subscription for them; subscribers
+ * of a job running on another node get its state polled from the database. Finished jobs are
+ * deleted after the retention period. A node restart loses the jobs it was running, which are
+ * failed once they are older than {@code stale-after}, and the client simply links again.
+ */
+@Service
+@Slf4j
+public class GitHubLinkJobServiceImpl implements IGitHubLinkJobService, DisposableBean {
+    
+    private static final long RETRY_AFTER_SECONDS = 5;
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    private final IGitHubService gitHubService;
+    private final AccountLinkJobRepository jobRepository;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Duration staleAfter;
+    private final Duration sseTimeout;
+    private final Set<UUID> runningJobs = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    
+    public GitHubLinkJobServiceImpl(IGitHubService gitHubService,
+                                    AccountLinkJobRepository jobRepository,
+                                    @Value("${app.github.link-jobs.threads:4}") int threads,
+                                    @Value("${app.github.link-jobs.queue-capacity:100}") int queueCapacity,
+                                    @Value("${app.github.link-jobs.retention:15m}") Duration retention,
+                                    @Value("${app.github.link-jobs.stale-after:10m}") Duration staleAfter,
+                                    @Value("${app.github.link-jobs.sse-timeout:1m}") Duration sseTimeout,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                    MeterRegistry meterRegistry) {
+        this.gitHubService = gitHubService;
+        this.jobRepository = jobRepository;
+        this.retention = retention;
+        this.staleAfter = staleAfter;
+        this.sseTimeout = sseTimeout;
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("github-link-", 0).factory()
+                : new CustomizableThreadFactory("github-link-");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        
+        Gauge.builder("github.link-jobs.queue.depth", executor, e -> e.getQueue().size())
+                .description("GitHub link jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("github.link-jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+    
+    public GitHubLinkJob submit(Long userId, String userEmail, String githubToken) {
+        AccountLinkJob job = jobRepository.save(AccountLinkJob.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .status(JobStatus.PENDING)
+                .build());
+        
+        runningJobs.add(job.getId());
+        try {
+            executor.execute(() -> run(job, userEmail, githubToken));
+        } catch (RejectedExecutionException e) {
+            runningJobs.remove(job.getId());
+            jobRepository.delete(job);
+            throw new ServiceUnavailableException("Too many GitHub link requests, please retry shortly", RETRY_AFTER_SECONDS);
+        }
+        return toDto(job);
+    }
+    
+    public Optional<GitHubLinkJob> getJob(String jobId, Long userId) {
+        return find(jobId, userId).map(GitHubLinkJobServiceImpl::toDto);
+    }
+    
+    public Optional<SseEmitter> subscribe(String jobId, Long userId) {
+        return find(jobId, userId).map(job -> {
+            SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+            List<SseEmitter> jobEmitters = emitters.compute(job.getId(), (id, existing) -> {
+                List<SseEmitter> list = existing != null ? existing : new CopyOnWriteArrayList<>();
+                list.add(emitter);
+                return list;
+            });
+            emitter.onCompletion(() -> jobEmitters.remove(emitter));
+            emitter.onTimeout(() -> jobEmitters.remove(emitter));
+            // Covers a job that finished before the subscription was registered
+            send(emitter, toDto(job));
+            return emitter;
+        });
+    }
+    
+    /**
+     * Pushes the stored state of jobs running on other nodes to local subscribers. Jobs running
+     * here publish their own updates.
+     */
+    @Scheduled(fixedDelayString = "${app.github.link-jobs.progress-interval:1s}")
+    public void publishRemoteProgress() {
+        for (UUID jobId : emitters.keySet()) {
+            // Every subscriber of this job has gone away
+            if (emitters.computeIfPresent(jobId, (id, list) -> list.isEmpty() ? null : list) == null
+                    || runningJobs.contains(jobId)) {
+                continue;
+            }
+            jobRepository.findById(jobId).ifPresentOrElse(this::publish, () -> {
+                List<SseEmitter> jobEmitters = emitters.remove(jobId);
+                if (jobEmitters != null) {
+                    jobEmitters.forEach(SseEmitter::complete);
+                }
+            });
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.github.link-jobs.cleanup-interval:1m}")
+    public void cleanUp() {
+        LocalDateTime now = LocalDateTime.now();
+        int interrupted = jobRepository.failUnfinishedBefore(now.minus(staleAfter),
+                "Linking was interrupted, please link your GitHub account again", now);
+        if (interrupted > 0) {
+            log.info("Failed {} GitHub link jobs left unfinished by a stopped node", interrupted);
+        }
+        jobRepository.deleteCreatedBefore(now.minus(retention));
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+    
+    private Optional<AccountLinkJob> find(String jobId, Long userId) {
+        UUID id;
+        try {
+            id = UUID.fromString(jobId);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        return jobRepository.findByIdAndUserId(id, userId);
+    }
+    
+    private void run(AccountLinkJob job, String userEmail, String githubToken) {
+        try {
+            job.setStatus(JobStatus.RUNNING);
+            update(job);
+            
+            try {
+                GitHubUserInfo githubUser = gitHubService.linkGitHubAccount(userEmail, githubToken);
+                job.setStatus(JobStatus.SUCCEEDED);
+                job.setGithubUsername(githubUser.getLogin());
+            } catch (RuntimeException e) {
+                log.warn("GitHub link job {} failed for user: {}", job.getId(), userEmail);
+                job.setStatus(JobStatus.FAILED);
+                job.setError(truncate(e.getMessage()));
+            }
+            job.setCompletedAt(LocalDateTime.now());
+            update(job);
+        } catch (RuntimeException e) {
+            // The job row could not be written; the cleanup fails it once it is stale
+            log.error("Could not record the state of GitHub link job {}", job.getId(), e);
+        } finally {
+            runningJobs.remove(job.getId());
+        }
+    }
+    
+    private void update(AccountLinkJob job) {
+        publish(jobRepository.save(job));
+    }
+    
+    private void publish(AccountLinkJob job) {
+        List<SseEmitter> jobEmitters = emitters.get(job.getId());
+        if (jobEmitters == null || jobEmitters.isEmpty()) {
+            return;
+        }
+        GitHubLinkJob snapshot = toDto(job);
+        jobEmitters.forEach(emitter -> send(emitter, snapshot));
+        if (snapshot.getStatus().isDone()) {
+            emitters.remove(job.getId());
+        }
+    }
+    
+    private void send(SseEmitter emitter, GitHubLinkJob snapshot) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("status")
+                    .data(snapshot));
+            if (snapshot.getStatus().isDone()) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            emitter.completeWithError(e);
+        }
+    }
+    
+    private static GitHubLinkJob toDto(AccountLinkJob job) {
+        return GitHubLinkJob.builder()
+                .jobId(job.getId().toString())
+                .status(job.getStatus())
+                .githubUsername(job.getGithubUsername())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+    
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,408 @@
+package tn.esprithub.server.github.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.GHTeam;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.PagedIterable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import tn.esprithub.server.common.enums.UserRole;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+import tn.esprithub.server.github.client.GitHubRequestPriority;
+import tn.esprithub.server.github.dto.GitHubMembershipSyncSummary;
+import tn.esprithub.server.security.TokenBucketRateLimiter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reconciles one GitHub team with the {@code users} table: enabled students with a linked
+ * account are team members and teachers are maintainers (adding someone to an organization
+ * team also invites them to the organization). Both sides are reduced to sorted arrays of
+ * GitHub ids and the changes are computed in memory by set difference, so GitHub only sees
+ * the team listing plus one call per change, sent in parallel at background priority and
+ * paced by a token bucket. When nothing changed, a run costs the listing pages alone. Runs
+ * hold a {@link ScheduledJobLock}, so only one node reconciles the team at a time.
+ */
+@Service
+@Slf4j
+public class GitHubMembershipSyncServiceImpl implements IGitHubMembershipSyncService {
+    
+    static final String JOB_NAME = "github-membership-sync";
+    
+    private static final String DESIRED_SQL = """
+            SELECT github_id, github_username, role
+            FROM users
+            WHERE github_id IS NOT NULL AND github_username IS NOT NULL AND enabled = TRUE
+              AND role IN ('STUDENT', 'TEACHER')
+            ORDER BY github_id""";
+    private static final String RATE_KEY = "membership-sync";
+    private static final int LIST_PAGE_SIZE = 100;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final GitHubClientFactory gitHubClientFactory;
+    private final ScheduledJobLock jobLock;
+    private final boolean enabled;
+    private final String adminToken;
+    private final String organization;
+    private final String teamSlug;
+    private final int parallelism;
+    private final int maxRemovals;
+    private final TokenBucketRateLimiter rateBudget;
+    // Invitees only show up in the team listing once they accept; remembering recent
+    // invitations keeps them from being re-invited, one call each, on every run
+    private final Cache<Long, GHTeam.Role> invitations;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Timer durationTimer;
+    private final Counter addedCounter;
+    private final Counter roleChangedCounter;
+    private final Counter removedCounter;
+    private final Counter failedCounter;
+    
+    public GitHubMembershipSyncServiceImpl(JdbcTemplate jdbcTemplate,
+                                           GitHubClientFactory gitHubClientFactory,
+                                           ScheduledJobLock jobLock,
+                                           @Value("${app.github.membership-sync.enabled:false}") boolean enabled,
+                                           @Value("${app.github.membership-sync.admin-token:}") String adminToken,
+                                           @Value("${app.github.membership-sync.organization:}") String organization,
+                                           @Value("${app.github.membership-sync.team:students}") String teamSlug,
+                                           @Value("${app.github.membership-sync.parallelism:8}") int parallelism,
+                                           @Value("${app.github.membership-sync.max-per-second:10}") int maxPerSecond,
+                                           @Value("${app.github.membership-sync.max-removals:200}") int maxRemovals,
+                                           @Value("${app.github.membership-sync.invitation-ttl:7d}") Duration invitationTtl,
+                                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gitHubClientFactory = gitHubClientFactory;
+        this.jobLock = jobLock;
+        this.enabled = enabled;
+        this.adminToken = adminToken;
+        this.organization = organization;
+        this.teamSlug = teamSlug;
+        this.parallelism = parallelism;
+        this.maxRemovals = maxRemovals;
+        this.rateBudget = new TokenBucketRateLimiter(maxPerSecond, Duration.ofSeconds(1), 1);
+        this.invitations = Caffeine.newBuilder()
+                .expireAfterWrite(invitationTtl)
+                .maximumSize(100_000)
+                .build();
+        this.durationTimer = Timer.builder("github.membership-sync.duration")
+                .description("Duration of a GitHub team membership reconcile")
+                .register(meterRegistry);
+        this.addedCounter = changes(meterRegistry, "added");
+        this.roleChangedCounter = changes(meterRegistry, "role_changed");
+        this.removedCounter = changes(meterRegistry, "removed");
+        this.failedCounter = changes(meterRegistry, "failed");
+    }
+    
+    @Scheduled(cron = "${app.github.membership-sync.cron:0 30 3 * * *}")
+    public void scheduledSync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            syncMemberships();
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled GitHub membership sync: {}", e.getMessage());
+        } catch (UncheckedIOException e) {
+            log.warn("GitHub membership sync failed: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public GitHubMembershipSyncSummary syncMemberships() {
+        if (adminToken.isBlank() || organization.isBlank()) {
+            throw new IllegalStateException("GitHub membership sync needs an organization and an admin token");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("GitHub membership sync is already running");
+        }
+        try (ScheduledJobLock.Handle lock = jobLock.tryLock(JOB_NAME).orElseThrow(
+                () -> new IllegalStateException("GitHub membership sync is running on another node"));
+             ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                     new CustomizableThreadFactory("github-membership-sync-"))) {
+            return run(executor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read GitHub team " + organization + "/" + teamSlug, e);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private GitHubMembershipSyncSummary run(ExecutorService executor) throws IOException {
+        long start = System.nanoTime();
+        GitHub gitHub = gitHubClientFactory.newClient(adminToken);
+        
+        List<DesiredMember> desired = jdbcTemplate.query(DESIRED_SQL, (rs, rowNum) -> new DesiredMember(
+                rs.getLong("github_id"),
+                rs.getString("github_username"),
+                UserRole.valueOf(rs.getString("role"))));
+        TeamState actual = GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND, () -> readTeam(gitHub));
+        MembershipPlan plan = plan(desired, actual);
+        
+        List<Change> changes = new ArrayList<>();
+        long pending = 0;
+        for (long id : plan.addMembers()) {
+            pending += addChange(changes, actual, plan, id, GHTeam.Role.MEMBER) ? 0 : 1;
+        }
+        for (long id : plan.addMaintainers()) {
+            pending += addChange(changes, actual, plan, id, GHTeam.Role.MAINTAINER) ? 0 : 1;
+        }
+        long removalsSkipped = 0;
+        if (plan.remove().length > maxRemovals) {
+            // A mass removal more likely means a bad users table or config than a real change
+            removalsSkipped = plan.remove().length;
+            log.warn("GitHub membership sync would remove {} members from {}/{}, over the limit of {}; skipping removals",
+                    removalsSkipped, organization, teamSlug, maxRemovals);
+        } else {
+            for (long id : plan.remove()) {
+                changes.add(new Change(id, actual.users().get(id), null, null, false));
+            }
+        }
+        
+        List<Future<Boolean>> results = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            results.add(executor.submit(() -> apply(gitHub, actual.team(), change)));
+        }
+        long added = 0;
+        long roleChanged = 0;
+        long removed = 0;
+        long failed = 0;
+        for (int i = 0; i < changes.size(); i++) {
+            Change change = changes.get(i);
+            if (!await(results.get(i))) {
+                failedCounter.increment();
+                failed++;
+            } else if (change.role() == null) {
+                removedCounter.increment();
+                removed++;
+            } else if (change.roleChange()) {
+                roleChangedCounter.increment();
+                roleChanged++;
+            } else {
+                addedCounter.increment();
+                added++;
+            }
+        }
+        
+        long durationNanos = System.nanoTime() - start;
+        durationTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        long durationMs = Math.max(1, durationNanos / 1_000_000);
+        log.info("GitHub membership sync of {}/{} finished: {} added, {} role changes, {} removed, {} failed in {} ms",
+                organization, teamSlug, added, roleChanged, removed, failed, durationMs);
+        
+        return GitHubMembershipSyncSummary.builder()
+                .organization(organization)
+                .team(teamSlug)
+                .students(plan.students().length)
+                .teachers(plan.teachers().length)
+                .currentMembers(actual.members().length)
+                .currentMaintainers(actual.maintainers().length)
+                .added(added)
+                .roleChanged(roleChanged)
+                .removed(removed)
+                .pendingInvitations(pending)
+                .removalsSkipped(removalsSkipped)
+                .failed(failed)
+                .durationMs(durationMs)
+                .build();
+    }
+    
+    private TeamState readTeam(GitHub gitHub) throws IOException {
+        GHTeam team = gitHub.getOrganization(organization).getTeamBySlug(teamSlug);
+        if (team == null) {
+            throw new IllegalStateException("GitHub team " + organization + "/" + teamSlug + " does not exist");
+        }
+        Map<Long, GHUser> users = new HashMap<>();
+        long[] members = ids(team.listMembers(GHTeam.Role.MEMBER), users);
+        long[] maintainers = ids(team.listMembers(GHTeam.Role.MAINTAINER), users);
+        return new TeamState(team, gitHub.getMyself().getId(), members, maintainers, users);
+    }
+    
+    static MembershipPlan plan(List<DesiredMember> desired, TeamState actual) {
+        Map<Long, String> logins = new HashMap<>();
+        long[] students = sortedIds(desired, UserRole.STUDENT, logins);
+        long[] teachers = sortedIds(desired, UserRole.TEACHER, logins);
+        // Someone linked to both a student and a teacher account gets the stronger role
+        students = difference(students, teachers);
+        
+        long[] remove = difference(difference(union(actual.members(), actual.maintainers()), union(students, teachers)),
+                new long[]{actual.selfId()});
+        return new MembershipPlan(students, teachers,
+                difference(students, actual.members()),
+                difference(teachers, actual.maintainers()),
+                remove, logins);
+    }
+    
+    private boolean addChange(List<Change> changes, TeamState actual, MembershipPlan plan, long id, GHTeam.Role role) {
+        if (invitations.getIfPresent(id) == role) {
+            return false;
+        }
+        long[] otherRole = role == GHTeam.Role.MEMBER ? actual.maintainers() : actual.members();
+        boolean roleChange = Arrays.binarySearch(otherRole, id) >= 0;
+        changes.add(new Change(id, null, plan.logins().get(id), role, roleChange));
+        return true;
+    }
+    
+    private boolean apply(GitHub gitHub, GHTeam team, Change change) {
+        try {
+            pace();
+            GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND, () -> {
+                if (change.role() == null) {
+                    team.remove(change.user());
+                    invitations.invalidate(change.id());
+                    return null;
+                }
+                GHUser user = gitHub.getUser(change.login());
+                if (user.getId() != change.id()) {
+                    throw new IOException("GitHub login " + change.login() + " now belongs to another account");
+                }
+                team.add(user, change.role());
+                if (!change.roleChange()) {
+                    invitations.put(change.id(), change.role());
+                }
+                return null;
+            });
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("GitHub membership change for {} in {}/{} failed: {}",
+                    change.id(), organization, teamSlug, e.getMessage());
+            return false;
+        }
+    }
+    
+    private void pace() {
+        long waitNanos;
+        while ((waitNanos = rateBudget.tryAcquire(RATE_KEY)) > 0) {
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("GitHub membership sync was interrupted");
+            }
+        }
+    }
+    
+    private static boolean await(Future<Boolean> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GitHub membership sync was interrupted", e);
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+    
+    private static long[] ids(PagedIterable<GHUser> users, Map<Long, GHUser> byId) throws IOException {
+        List<GHUser> page = users.withPageSize(LIST_PAGE_SIZE).toList();
+        long[] ids = new long[page.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = page.get(i).getId();
+            byId.put(ids[i], page.get(i));
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+    
+    private static long[] sortedIds(List<DesiredMember> desired, UserRole role, Map<Long, String> logins) {
+        long[] ids = new long[desired.size()];
+        int size = 0;
+        for (DesiredMember member : desired) {
+            if (member.role() == role) {
+                ids[size++] = member.githubId();
+                logins.put(member.githubId(), member.login());
+            }
+        }
+        ids = Arrays.copyOf(ids, size);
+        Arrays.sort(ids);
+        return distinct(ids);
+    }
+    
+    // Set operations over sorted, duplicate-free arrays, each a single merge pass
+    
+    static long[] difference(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        int size = 0;
+        int j = 0;
+        for (long id : a) {
+            while (j < b.length && b[j] < id) {
+                j++;
+            }
+            if (j == b.length || b[j] != id) {
+                result[size++] = id;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+    
+    static long[] union(long[] a, long[] b) {
+        long[] result = new long[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            long next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            result[size++] = next;
+        }
+        return Arrays.copyOf(result, size);
+    }
+    
+    private static long[] distinct(long[] sorted) {
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+    
+    private static Counter changes(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.membership-sync.changes")
+                .description("Team membership changes applied by the GitHub membership sync")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    record DesiredMember(long githubId, String login, UserRole role) {
+    }
+    
+    record TeamState(GHTeam team, long selfId, long[] members, long[] maintainers, Map<Long, GHUser> users) {
+    }
+    
+    record MembershipPlan(long[] students, long[] teachers, long[] addMembers, long[] addMaintainers,
+                          long[] remove, Map<Long, String> logins) {
+    }
+    
+    // role is null for a removal
+    private record Change(long id, GHUser user, String login, GHTeam.Role role, boolean roleChange) {
+    }
+}
@@ -0,0 +1,261 @@
+package tn.esprithub.server.github.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.GHMyself;
+import org.kohsuke.github.HttpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+import tn.esprithub.server.github.client.GitHubRequestPriority;
+import tn.esprithub.server.github.dto.GitHubSyncSummary;
+import tn.esprithub.server.github.entity.SyncCheckpoint;
+import tn.esprithub.server.github.repository.SyncCheckpointRepository;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes {@code github_username}, {@code github_id} and {@code profile_picture} for every
+ * user with a linked GitHub account. Users are read in id order one page at a time (keyset
+ * paging, so each page is an index range scan however far the run has progressed), their
+ * profiles are fetched in parallel at background priority, and only the rows that changed are
+ * written back in one JDBC batch per page. The last finished id is checkpointed after each
+ * page, so a run that is interrupted resumes where it stopped. A run holds a
+ * {@link ScheduledJobLock}, so only one node syncs at a time.
+ */
+@Service
+@Slf4j
+public class GitHubProfileSyncServiceImpl implements IGitHubProfileSyncService {
+    
+    static final String JOB_NAME = "github-profile-sync";
+    
+    private static final String PAGE_SQL = """
+            SELECT id, github_token, github_username, github_id, profile_picture
+            FROM users
+            WHERE github_token IS NOT NULL AND id > ?
+            ORDER BY id
+            LIMIT ?""";
+    // Matching the token as well skips users who re-linked another account while the page was fetched
+    private static final String UPDATE_SQL = """
+            UPDATE users SET github_username = ?, github_id = ?, profile_picture = ?, updated_at = ?
+            WHERE id = ? AND github_token = ?""";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SyncCheckpointRepository checkpointRepository;
+    private final GitHubClientFactory gitHubClientFactory;
+    private final ScheduledJobLock jobLock;
+    private final boolean enabled;
+    private final int pageSize;
+    private final int parallelism;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastThroughput = new AtomicLong();
+    private final Counter updatedCounter;
+    private final Counter unchangedCounter;
+    private final Counter invalidCounter;
+    private final Counter failedCounter;
+    
+    public GitHubProfileSyncServiceImpl(JdbcTemplate jdbcTemplate,
+                                        SyncCheckpointRepository checkpointRepository,
+                                        GitHubClientFactory gitHubClientFactory,
+                                        ScheduledJobLock jobLock,
+                                        @Value("${app.github.profile-sync.enabled:true}") boolean enabled,
+                                        @Value("${app.github.profile-sync.page-size:500}") int pageSize,
+                                        @Value("${app.github.profile-sync.parallelism:8}") int parallelism,
+                                        MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.gitHubClientFactory = gitHubClientFactory;
+        this.jobLock = jobLock;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.updatedCounter = users(meterRegistry, "updated");
+        this.unchangedCounter = users(meterRegistry, "unchanged");
+        this.invalidCounter = users(meterRegistry, "invalid_token");
+        this.failedCounter = users(meterRegistry, "failed");
+        Gauge.builder("github.profile-sync.throughput", lastThroughput, t -> Double.longBitsToDouble(t.get()))
+                .description("Users per second processed by the last profile sync run")
+                .baseUnit("users/s")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${app.github.profile-sync.cron:0 0 3 * * *}")
+    public void scheduledSync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            syncProfiles();
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled GitHub profile sync: {}", e.getMessage());
+        }
+    }
+    
+    public GitHubSyncSummary syncProfiles() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("GitHub profile sync is already running");
+        }
+        try (ScheduledJobLock.Handle lock = jobLock.tryLock(JOB_NAME).orElseThrow(
+                () -> new IllegalStateException("GitHub profile sync is running on another node"));
+             ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                     new CustomizableThreadFactory("github-profile-sync-"))) {
+            return run(executor);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private GitHubSyncSummary run(ExecutorService executor) {
+        SyncCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                .orElseGet(() -> SyncCheckpoint.builder().jobName(JOB_NAME).lastUserId(0L).build());
+        boolean resumed = checkpoint.getLastUserId() > 0;
+        if (resumed) {
+            log.info("Resuming GitHub profile sync after user {}", checkpoint.getLastUserId());
+        } else {
+            checkpoint.setRunStartedAt(Instant.now());
+        }
+        
+        long start = System.nanoTime();
+        long processed = 0;
+        long updated = 0;
+        long failed = 0;
+        long lastUserId = checkpoint.getLastUserId();
+        
+        List<LinkedProfile> page;
+        while (!(page = jdbcTemplate.query(PAGE_SQL, (rs, rowNum) -> new LinkedProfile(
+                rs.getLong("id"),
+                rs.getString("github_token"),
+                rs.getString("github_username"),
+                rs.getObject("github_id", Long.class),
+                rs.getString("profile_picture")), lastUserId, pageSize)).isEmpty()) {
+            
+            List<Future<ProfileResult>> results = new ArrayList<>(page.size());
+            for (LinkedProfile profile : page) {
+                results.add(executor.submit(() -> fetch(profile)));
+            }
+            
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> changedRows = new ArrayList<>();
+            for (int i = 0; i < page.size(); i++) {
+                ProfileResult result = await(results.get(i));
+                LinkedProfile profile = page.get(i);
+                switch (result.outcome()) {
+                    case CHANGED -> changedRows.add(new Object[]{result.login(), result.githubId(), result.avatarUrl(), now,
+                            profile.id(), profile.githubToken()});
+                    case UNCHANGED -> unchangedCounter.increment();
+                    case INVALID_TOKEN -> invalidCounter.increment();
+                    case FAILED -> {
+                        failedCounter.increment();
+                        failed++;
+                    }
+                }
+            }
+            if (!changedRows.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, changedRows);
+                long written = Arrays.stream(counts).filter(count -> count > 0).count();
+                updatedCounter.increment(written);
+                updated += written;
+            }
+            
+            processed += page.size();
+            lastUserId = page.get(page.size() - 1).id();
+            checkpoint.setLastUserId(lastUserId);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+        }
+        
+        checkpoint.setLastUserId(0L);
+        checkpoint.setLastCompletedAt(Instant.now());
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        
+        long durationMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double usersPerSecond = processed * 1000.0 / durationMs;
+        lastThroughput.set(Double.doubleToLongBits(usersPerSecond));
+        log.info("GitHub profile sync finished: {} users, {} updated, {} failed in {} ms ({} users/s)",
+                processed, updated, failed, durationMs, String.format("%.1f", usersPerSecond));
+        
+        return GitHubSyncSummary.builder()
+                .jobName(JOB_NAME)
+                .resumed(resumed)
+                .processed(processed)
+                .updated(updated)
+                .failed(failed)
+                .durationMs(durationMs)
+                .usersPerSecond(usersPerSecond)
+                .build();
+    }
+    
+    private ProfileResult fetch(LinkedProfile profile) {
+        try {
+            GHMyself me = GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND,
+                    () -> gitHubClientFactory.newClient(profile.githubToken()).getMyself());
+            boolean changed = !Objects.equals(me.getLogin(), profile.githubUsername())
+                    || !Objects.equals(me.getId(), profile.githubId())
+                    || !Objects.equals(me.getAvatarUrl(), profile.profilePicture());
+            return new ProfileResult(changed ? Outcome.CHANGED : Outcome.UNCHANGED, me.getLogin(), me.getId(),
+                    me.getAvatarUrl());
+        } catch (HttpException e) {
+            if (e.getResponseCode() == HttpStatus.UNAUTHORIZED.value()) {
+                return ProfileResult.of(Outcome.INVALID_TOKEN);
+            }
+            log.warn("GitHub profile sync failed for user {}: HTTP {}", profile.id(), e.getResponseCode());
+            return ProfileResult.of(Outcome.FAILED);
+        } catch (IOException | RuntimeException e) {
+            log.warn("GitHub profile sync failed for user {}: {}", profile.id(), e.getMessage());
+            return ProfileResult.of(Outcome.FAILED);
+        }
+    }
+    
+    private static ProfileResult await(Future<ProfileResult> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GitHub profile sync was interrupted", e);
+        } catch (ExecutionException e) {
+            return ProfileResult.of(Outcome.FAILED);
+        }
+    }
+    
+    private static Counter users(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.profile-sync.users")
+                .description("Users processed by the GitHub profile sync")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private enum Outcome {
+        CHANGED, UNCHANGED, INVALID_TOKEN, FAILED
+    }
+    
+    private record LinkedProfile(long id, String githubToken, String githubUsername, Long githubId,
+                                 String profilePicture) {
+    }
+    
+    private record ProfileResult(Outcome outcome, String login, Long githubId, String avatarUrl) {
+        
+        static ProfileResult of(Outcome outcome) {
+            return new ProfileResult(outcome, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,619 @@
+package tn.esprithub.server.github.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.HttpException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprithub.server.common.enums.JobStatus;
+import tn.esprithub.server.common.enums.ProvisioningStep;
+import tn.esprithub.server.common.enums.UserRole;
+import tn.esprithub.server.common.exception.ServiceUnavailableException;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+import tn.esprithub.server.github.client.GitHubRequestPriority;
+import tn.esprithub.server.github.dto.ProvisioningJobSummary;
+import tn.esprithub.server.github.dto.RepositoryProvisioningRequest;
+import tn.esprithub.server.github.entity.ProvisioningItem;
+import tn.esprithub.server.github.entity.ProvisioningJob;
+import tn.esprithub.server.github.repository.ProvisioningItemRepository;
+import tn.esprithub.server.github.repository.ProvisioningJobRepository;
+import tn.esprithub.server.security.TokenBucketRateLimiter;
+import tn.esprithub.server.user.entity.User;
+import tn.esprithub.server.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates one repository per student from a template, adds the student as a collaborator and
+ * protects the default branch. Each student is an item whose last completed step is persisted
+ * after every GitHub call, so a retried or resumed item continues where it stopped and every
+ * step tolerates having already been done. Items of a job fan out over a bounded pool; calls
+ * run at background priority under the rate-limit scheduler, and repository creation is paced
+ * per organization to stay under GitHub's secondary limit on content creation. A job is
+ * claimed by one node under a lease that is renewed as items finish; unfinished jobs are
+ * resumed at startup and periodically, by whichever node claims them once their lease expired.
+ * A node that finds its lease taken over stops before the next step and leaves the job to the
+ * new owner. Progress is pushed to subscribers as items finish, or polled from the database
+ * when the job runs on another node.
+ */
+@Service
+@Slf4j
+public class GitHubProvisioningServiceImpl implements IGitHubProvisioningService, DisposableBean {
+    
+    private static final long RETRY_AFTER_SECONDS = 30;
+    private static final Set<JobStatus> OPEN_ITEMS = Set.of(JobStatus.PENDING, JobStatus.RUNNING);
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    private final ProvisioningJobRepository jobRepository;
+    private final ProvisioningItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final GitHubClientFactory gitHubClientFactory;
+    private final IGitHubRepositoryMirrorService repositoryMirror;
+    private final ThreadPoolExecutor jobExecutor;
+    private final ThreadFactory itemThreadFactory;
+    private final TokenBucketRateLimiter creationLimiter;
+    private final int concurrency;
+    private final int reposPerMinute;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration sseTimeout;
+    private final Duration lease;
+    private final String owner;
+    private final Set<UUID> runningJobs = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Timer itemTimer;
+    
+    public GitHubProvisioningServiceImpl(ProvisioningJobRepository jobRepository,
+                                         ProvisioningItemRepository itemRepository,
+                                         UserRepository userRepository,
+                                         GitHubClientFactory gitHubClientFactory,
+                                         IGitHubRepositoryMirrorService repositoryMirror,
+                                         @Value("${app.github.provisioning.jobs:2}") int jobThreads,
+                                         @Value("${app.github.provisioning.queue-capacity:20}") int queueCapacity,
+                                         @Value("${app.github.provisioning.concurrency:8}") int concurrency,
+                                         @Value("${app.github.provisioning.repos-per-minute:60}") int reposPerMinute,
+                                         @Value("${app.github.provisioning.max-attempts:4}") int maxAttempts,
+                                         @Value("${app.github.provisioning.retry-backoff:2s}") Duration retryBackoff,
+                                         @Value("${app.github.provisioning.sse-timeout:30m}") Duration sseTimeout,
+                                         @Value("${app.github.provisioning.lease:30m}") Duration lease,
+                                         @Value("${app.instance-id:${HOSTNAME:}}") String instanceId,
+                                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                         MeterRegistry meterRegistry) {
+        this.jobRepository = jobRepository;
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.gitHubClientFactory = gitHubClientFactory;
+        this.repositoryMirror = repositoryMirror;
+        this.concurrency = concurrency;
+        this.reposPerMinute = reposPerMinute;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.sseTimeout = sseTimeout;
+        this.lease = lease;
+        this.owner = StringUtils.hasText(instanceId) ? instanceId : UUID.randomUUID().toString();
+        this.jobExecutor = new ThreadPoolExecutor(jobThreads, jobThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("github-provisioning-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.itemThreadFactory = virtualThreads
+                ? Thread.ofVirtual().name("github-provisioning-item-", 0).factory()
+                : new CustomizableThreadFactory("github-provisioning-item-");
+        // Bursts of a few creations are fine, the sustained rate is what GitHub limits
+        this.creationLimiter = new TokenBucketRateLimiter(Math.max(1, reposPerMinute / 6), Duration.ofSeconds(10), 1000);
+        
+        this.succeededCounter = items(meterRegistry, "succeeded");
+        this.failedCounter = items(meterRegistry, "failed");
+        this.retriedCounter = items(meterRegistry, "retried");
+        this.itemTimer = Timer.builder("github.provisioning.item.duration")
+                .description("Time to provision one student repository, retries included")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
+        Gauge.builder("github.provisioning.jobs.active", jobExecutor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("github.provisioning.jobs.queued", jobExecutor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+    
+    public ProvisioningJobSummary submit(Long teacherId, RepositoryProvisioningRequest request) {
+        User teacher = userRepository.findById(teacherId)
+                .filter(user -> user.getRole() == UserRole.TEACHER)
+                .orElseThrow(() -> new IllegalArgumentException("Only teachers can provision repositories"));
+        if (teacher.getGithubToken() == null) {
+            throw new IllegalArgumentException("Link your GitHub account before provisioning repositories");
+        }
+        
+        List<Long> studentIds = request.getStudentIds().stream().distinct().toList();
+        Map<Long, User> students = userRepository.findAllById(studentIds).stream()
+                .filter(user -> user.getRole() == UserRole.STUDENT)
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<Long> unknown = studentIds.stream().filter(id -> !students.containsKey(id)).toList();
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Not students: " + unknown);
+        }
+        
+        ProvisioningJob job = jobRepository.save(ProvisioningJob.builder()
+                .id(UUID.randomUUID())
+                .teacherId(teacherId)
+                .organization(request.getOrganization())
+                .templateRepository(request.getTemplateRepository())
+                .assignment(request.getAssignment())
+                .privateRepositories(request.isPrivateRepositories())
+                .protectDefaultBranch(request.isProtectDefaultBranch())
+                .status(JobStatus.PENDING)
+                .claimedBy(owner)
+                .leaseExpiresAt(Instant.now().plus(lease))
+                .build());
+        
+        Instant now = Instant.now();
+        itemRepository.saveAll(studentIds.stream()
+                .map(students::get)
+                .map(student -> ProvisioningItem.builder()
+                        .jobId(job.getId())
+                        .studentId(student.getId())
+                        .githubUsername(student.getGithubUsername())
+                        .repositoryName(request.getAssignment() + "-"
+                                + (student.getGithubUsername() != null ? student.getGithubUsername() : student.getId()))
+                        .step(ProvisioningStep.PENDING)
+                        // Students without a linked account cannot be added, report them up front
+                        .status(student.getGithubUsername() != null ? JobStatus.PENDING : JobStatus.FAILED)
+                        .error(student.getGithubUsername() != null ? null : "Student has not linked a GitHub account")
+                        .updatedAt(now)
+                        .build())
+                .toList());
+        
+        start(job);
+        return summarize(job);
+    }
+    
+    public Optional<ProvisioningJobSummary> getJob(UUID jobId, Long teacherId) {
+        return jobRepository.findByIdAndTeacherId(jobId, teacherId).map(this::summarize);
+    }
+    
+    public Optional<ProvisioningJobSummary> retryFailed(UUID jobId, Long teacherId) {
+        return jobRepository.findByIdAndTeacherId(jobId, teacherId).map(job -> {
+            if (!job.getStatus().isDone()) {
+                throw new IllegalArgumentException("Provisioning job is still running");
+            }
+            itemRepository.resetFailed(jobId);
+            job.setStatus(JobStatus.PENDING);
+            job.setError(null);
+            job.setCompletedAt(null);
+            job.setClaimedBy(owner);
+            job.setLeaseExpiresAt(Instant.now().plus(lease));
+            start(jobRepository.save(job));
+            return summarize(job);
+        });
+    }
+    
+    public Optional<SseEmitter> subscribe(UUID jobId, Long teacherId) {
+        return jobRepository.findByIdAndTeacherId(jobId, teacherId).map(job -> {
+            SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+            // Atomic per job, so the list cannot be dropped as empty between lookup and add
+            List<SseEmitter> jobEmitters = emitters.compute(jobId, (id, existing) -> {
+                List<SseEmitter> list = existing != null ? existing : new CopyOnWriteArrayList<>();
+                list.add(emitter);
+                return list;
+            });
+            emitter.onCompletion(() -> jobEmitters.remove(emitter));
+            emitter.onTimeout(() -> jobEmitters.remove(emitter));
+            // Covers a job that finished before the subscription was registered
+            send(emitter, summarize(job));
+            return emitter;
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.github.provisioning.resume-interval:5m}",
+               initialDelayString = "${app.github.provisioning.resume-interval:5m}")
+    public void resumeInterrupted() {
+        List<ProvisioningJob> interrupted = jobRepository.findByStatusIn(Set.of(JobStatus.PENDING, JobStatus.RUNNING));
+        for (ProvisioningJob job : interrupted) {
+            Instant now = Instant.now();
+            // Jobs running here or leased by another live node are left alone
+            if (runningJobs.contains(job.getId())
+                    || jobRepository.claim(job.getId(), owner, now, now.plus(lease)) == 0) {
+                continue;
+            }
+            if (!tryStart(job.getId())) {
+                // The local queue is full; the job waits, unclaimed, for the next resume pass on any node
+                jobRepository.release(job.getId(), owner);
+                log.info("Deferred resuming repository provisioning job {}, the job queue is full", job.getId());
+                return;
+            }
+            log.info("Resuming repository provisioning job {}", job.getId());
+        }
+    }
+    
+    /**
+     * Emitters are local to the node a teacher subscribed on, while the job may run on any node,
+     * so subscribers of a job not running here get its persisted progress instead.
+     */
+    @Scheduled(fixedDelayString = "${app.github.provisioning.progress-interval:5s}")
+    public void publishRemoteProgress() {
+        for (UUID jobId : emitters.keySet()) {
+            // Every subscriber of this job has gone away
+            if (emitters.computeIfPresent(jobId, (id, list) -> list.isEmpty() ? null : list) == null
+                    || runningJobs.contains(jobId)) {
+                continue;
+            }
+            jobRepository.findById(jobId).ifPresentOrElse(this::publish, () -> {
+                List<SseEmitter> jobEmitters = emitters.remove(jobId);
+                if (jobEmitters != null) {
+                    jobEmitters.forEach(SseEmitter::complete);
+                }
+            });
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        // Items record each finished step, so running jobs are picked up again on restart
+        jobExecutor.shutdownNow();
+    }
+    
+    // Only for jobs the caller just submitted or reset, so the entity is current
+    private void start(ProvisioningJob job) {
+        if (!tryStart(job.getId())) {
+            job.setStatus(JobStatus.FAILED);
+            job.setError("Too many provisioning jobs, retry the job later");
+            job.setCompletedAt(Instant.now());
+            jobRepository.save(job);
+            throw new ServiceUnavailableException("Too many provisioning jobs, please retry shortly", RETRY_AFTER_SECONDS);
+        }
+    }
+    
+    private boolean tryStart(UUID jobId) {
+        runningJobs.add(jobId);
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    runningJobs.remove(jobId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            runningJobs.remove(jobId);
+            return false;
+        }
+    }
+    
+    private void run(UUID jobId) {
+        ProvisioningJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus().isDone()) {
+            return;
+        }
+        job.setStatus(JobStatus.RUNNING);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(Instant.now());
+        }
+        jobRepository.save(job);
+        publish(job);
+        
+        String token = userRepository.findById(job.getTeacherId()).map(User::getGithubToken).orElse(null);
+        if (token == null) {
+            finish(job, "The teacher's GitHub account is no longer linked");
+            return;
+        }
+        
+        GitHub gitHub = gitHubClientFactory.newClient(token);
+        List<ProvisioningItem> items = itemRepository.findByJobIdAndStatusIn(jobId, OPEN_ITEMS);
+        AtomicBoolean leaseLost = new AtomicBoolean();
+        try (ExecutorService workers = Executors.newFixedThreadPool(concurrency, itemThreadFactory)) {
+            for (ProvisioningItem item : items) {
+                workers.execute(() -> {
+                    if (leaseLost.get()) {
+                        return;
+                    }
+                    itemTimer.record(() -> provision(job, item, gitHub, token, leaseLost));
+                    renewLease(job, leaseLost);
+                    publish(job);
+                });
+            }
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            // Shutting down; the job stays RUNNING and is resumed on the next start
+            return;
+        }
+        if (leaseLost.get()) {
+            // The node that took the job over runs the remaining items and finishes it
+            log.warn("Stopped repository provisioning job {}, it was claimed by another node", jobId);
+            return;
+        }
+        finish(job, null);
+    }
+    
+    private void provision(ProvisioningJob job, ProvisioningItem item, GitHub gitHub, String token,
+                           AtomicBoolean leaseLost) {
+        item.setStatus(JobStatus.RUNNING);
+        save(item);
+        
+        GHRepository repository = null;
+        while (item.getStep() != ProvisioningStep.COMPLETED) {
+            if (leaseLost.get()) {
+                // Left RUNNING at its last step for the node that now owns the job
+                return;
+            }
+            try {
+                repository = GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND,
+                        () -> advance(job, item, gitHub, token));
+                item.setStep(next(item.getStep()));
+                save(item);
+                if (item.getStep() == ProvisioningStep.REPOSITORY_CREATED && repository != null) {
+                    // Tags the mirrored repository with its assignment
+                    repositoryMirror.record(repository, job.getAssignment());
+                }
+            } catch (IOException | RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                item.setAttempts(item.getAttempts() + 1);
+                if (!isRetryable(e, item.getStep()) || item.getAttempts() >= maxAttempts) {
+                    fail(item, e);
+                    return;
+                }
+                retriedCounter.increment();
+                save(item);
+                if (!backOff(item.getAttempts())) {
+                    return;
+                }
+            }
+        }
+        
+        item.setStatus(JobStatus.SUCCEEDED);
+        item.setError(null);
+        save(item);
+        succeededCounter.increment();
+        log.debug("Provisioned {}", repository != null ? repository.getFullName() : item.getRepositoryName());
+    }
+    
+    // Runs the step after item.getStep(); each one is safe to repeat
+    private GHRepository advance(ProvisioningJob job, ProvisioningItem item, GitHub gitHub,
+                                 String token) throws IOException {
+        String fullName = job.getOrganization() + "/" + item.getRepositoryName();
+        return switch (item.getStep()) {
+            case PENDING -> createRepository(job, item, gitHub, token, fullName);
+            case REPOSITORY_CREATED -> {
+                GHRepository repository = gitHub.getRepository(fullName);
+                repository.addCollaborators(GHOrganization.RepositoryRole.from(GHOrganization.Permission.PUSH),
+                        gitHub.getUser(item.getGithubUsername()));
+                yield repository;
+            }
+            case COLLABORATOR_ADDED -> {
+                if (!job.getProtectDefaultBranch()) {
+                    yield null;
+                }
+                GHRepository repository = gitHub.getRepository(fullName);
+                repository.getBranch(repository.getDefaultBranch())
+                        .enableProtection()
+                        .allowForcePushes(false)
+                        .allowDeletions(false)
+                        .enable();
+                yield repository;
+            }
+            case COMPLETED -> null;
+        };
+    }
+    
+    private GHRepository createRepository(ProvisioningJob job, ProvisioningItem item, GitHub gitHub, String token,
+                                          String fullName) throws IOException {
+        awaitCreationSlot(job.getOrganization());
+        String[] template = job.getTemplateRepository().split("/", 2);
+        try {
+            return gitHub.createRepository(item.getRepositoryName())
+                    .owner(job.getOrganization())
+                    .fromTemplateRepository(template[0], template[1])
+                    .private_(job.getPrivateRepositories())
+                    .create();
+        } catch (HttpException e) {
+            // 422: the name is taken, most likely by our own earlier attempt that timed out
+            if (e.getResponseCode() != 422) {
+                throw e;
+            }
+            String generatedFrom = gitHubClientFactory.getJson(token, "/repos/" + fullName)
+                    .path("template_repository").path("full_name").asText(null);
+            if (!job.getTemplateRepository().equalsIgnoreCase(generatedFrom)) {
+                throw new IllegalStateException("Repository " + fullName + " already exists and was not generated from "
+                        + job.getTemplateRepository());
+            }
+            return gitHub.getRepository(fullName);
+        }
+    }
+    
+    private static ProvisioningStep next(ProvisioningStep step) {
+        return switch (step) {
+            case PENDING -> ProvisioningStep.REPOSITORY_CREATED;
+            case REPOSITORY_CREATED -> ProvisioningStep.COLLABORATOR_ADDED;
+            case COLLABORATOR_ADDED, COMPLETED -> ProvisioningStep.COMPLETED;
+        };
+    }
+    
+    private static boolean isRetryable(Exception e, ProvisioningStep step) {
+        if (!(e instanceof HttpException http)) {
+            return e instanceof IOException;
+        }
+        int status = http.getResponseCode();
+        // A repository generated from a template has no branches for a few seconds
+        boolean branchNotReady = status == 404 && step == ProvisioningStep.COLLABORATOR_ADDED;
+        return status >= 500 || status == 429 || status == -1 || branchNotReady
+                || (status == 403 && isRateLimited(http));
+    }
+    
+    // 403 is also how GitHub reports rate limits; without these headers it is a permission error
+    private static boolean isRateLimited(HttpException e) {
+        Map<String, List<String>> headers = e.getResponseHeaderFields();
+        if (headers == null) {
+            return false;
+        }
+        return headers.entrySet().stream()
+                .filter(header -> header.getKey() != null)
+                .anyMatch(header -> header.getKey().equalsIgnoreCase("Retry-After")
+                        || (header.getKey().equalsIgnoreCase("X-RateLimit-Remaining") && header.getValue().contains("0")));
+    }
+    
+    private void awaitCreationSlot(String organization) throws IOException {
+        long waitNanos;
+        while ((waitNanos = creationLimiter.tryAcquire(organization)) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while pacing repository creation");
+            }
+        }
+    }
+    
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 6)));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private void fail(ProvisioningItem item, Exception e) {
+        String message = e instanceof HttpException http
+                ? "GitHub returned HTTP " + http.getResponseCode() + " after step " + item.getStep()
+                : e.getMessage();
+        item.setStatus(JobStatus.FAILED);
+        item.setError(message != null && message.length() > MAX_ERROR_LENGTH
+                ? message.substring(0, MAX_ERROR_LENGTH)
+                : message);
+        save(item);
+        failedCounter.increment();
+        log.warn("Provisioning {} failed after {} attempts: {}", item.getRepositoryName(), item.getAttempts(), message);
+    }
+    
+    private void renewLease(ProvisioningJob job, AtomicBoolean leaseLost) {
+        if (jobRepository.renewLease(job.getId(), owner, Instant.now().plus(lease)) == 0) {
+            leaseLost.set(true);
+        }
+    }
+    
+    private void finish(ProvisioningJob job, String error) {
+        Map<JobStatus, Long> counts = counts(job.getId());
+        job.setStatus(error == null && counts.get(JobStatus.FAILED) == 0 ? JobStatus.SUCCEEDED : JobStatus.FAILED);
+        job.setError(error);
+        job.setCompletedAt(Instant.now());
+        jobRepository.save(job);
+        
+        ProvisioningJobSummary summary = summarize(job);
+        log.info("Repository provisioning job {} finished: {} succeeded, {} failed, {} repos/min (target {})",
+                job.getId(), summary.getSucceeded(), summary.getFailed(),
+                String.format("%.1f", summary.getAchievedReposPerMinute()), summary.getTargetReposPerMinute());
+        publish(job);
+    }
+    
+    private void save(ProvisioningItem item) {
+        item.setUpdatedAt(Instant.now());
+        itemRepository.save(item);
+    }
+    
+    private ProvisioningJobSummary summarize(ProvisioningJob job) {
+        Map<JobStatus, Long> counts = counts(job.getId());
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        Instant end = job.getCompletedAt() != null ? job.getCompletedAt() : Instant.now();
+        double minutes = job.getStartedAt() != null
+                ? Duration.between(job.getStartedAt(), end).toMillis() / 60_000.0
+                : 0;
+        
+        return ProvisioningJobSummary.builder()
+                .jobId(job.getId())
+                .status(job.getStatus())
+                .organization(job.getOrganization())
+                .assignment(job.getAssignment())
+                .total(total)
+                .pending(counts.get(JobStatus.PENDING) + counts.get(JobStatus.RUNNING))
+                .succeeded(counts.get(JobStatus.SUCCEEDED))
+                .failed(counts.get(JobStatus.FAILED))
+                .error(job.getError())
+                .concurrency(concurrency)
+                .targetReposPerMinute(reposPerMinute)
+                .achievedReposPerMinute(minutes > 0 ? counts.get(JobStatus.SUCCEEDED) / minutes : 0)
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+    
+    private Map<JobStatus, Long> counts(UUID jobId) {
+        Map<JobStatus, Long> counts = new EnumMap<>(JobStatus.class);
+        for (JobStatus status : JobStatus.values()) {
+            counts.put(status, 0L);
+        }
+        itemRepository.countByStatus(jobId).forEach(count -> counts.put(count.getStatus(), count.getCount()));
+        return counts;
+    }
+    
+    private void publish(ProvisioningJob job) {
+        List<SseEmitter> jobEmitters = emitters.get(job.getId());
+        if (jobEmitters == null || jobEmitters.isEmpty()) {
+            return;
+        }
+        ProvisioningJobSummary summary = summarize(job);
+        jobEmitters.forEach(emitter -> send(emitter, summary));
+        if (summary.getStatus().isDone()) {
+            emitters.remove(job.getId());
+        }
+    }
+    
+    private void send(SseEmitter emitter, ProvisioningJobSummary summary) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("progress")
+                    .data(summary));
+            if (summary.getStatus().isDone()) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            emitter.completeWithError(e);
+        }
+    }
+    
+    private static Counter items(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.provisioning.items")
+                .description("Student repositories processed by provisioning jobs")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,439 @@
+package tn.esprithub.server.github.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.GHMyself;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.PagedIterable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+import tn.esprithub.server.github.client.GitHubRequestPriority;
+import tn.esprithub.server.github.dto.GitHubRepositorySyncSummary;
+import tn.esprithub.server.github.dto.MirroredRepositoryDto;
+import tn.esprithub.server.github.dto.RepositoryWebhookEvent;
+import tn.esprithub.server.github.entity.MirroredRepository;
+import tn.esprithub.server.github.repository.MirroredRepositoryRepository;
+import tn.esprithub.server.user.entity.User;
+import tn.esprithub.server.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@code github_repositories} in step with GitHub for every linked user's own
+ * repositories and every managed organization's. A sync run lists each owner's repositories
+ * through the ETag cache, so pages that did not change since the last run come back as 304s
+ * that cost no rate limit, compares them with the owner's local rows in memory and writes
+ * only new, changed and vanished repositories. Push and repository webhooks update rows as
+ * they arrive, so the scheduled run is mostly a safety net. Runs hold a
+ * {@link ScheduledJobLock}, so only one node syncs at a time.
+ */
+@Service
+@Slf4j
+public class GitHubRepositoryMirrorServiceImpl implements IGitHubRepositoryMirrorService {
+    
+    static final String JOB_NAME = "github-repository-mirror";
+    
+    private static final String USERS_PAGE_SQL = """
+            SELECT id, github_token
+            FROM users
+            WHERE github_token IS NOT NULL AND id > ?
+            ORDER BY id
+            LIMIT ?""";
+    private static final String OWNER_SQL = """
+            SELECT id, owner_login, name, full_name, default_branch, pushed_at, size_kb, language
+            FROM github_repositories
+            WHERE owner_login = ?""";
+    // A late webhook must not roll pushed_at back; the assignment is only ever set, never cleared
+    private static final String UPSERT_SQL = """
+            INSERT INTO github_repositories (id, owner_login, name, full_name, default_branch, pushed_at, size_kb,
+                                             language, assignment, synced_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET
+                owner_login = EXCLUDED.owner_login,
+                name = EXCLUDED.name,
+                full_name = EXCLUDED.full_name,
+                default_branch = EXCLUDED.default_branch,
+                pushed_at = EXCLUDED.pushed_at,
+                size_kb = EXCLUDED.size_kb,
+                language = EXCLUDED.language,
+                assignment = COALESCE(EXCLUDED.assignment, github_repositories.assignment),
+                synced_at = EXCLUDED.synced_at
+            WHERE github_repositories.pushed_at IS NULL OR EXCLUDED.pushed_at IS NULL
+                OR EXCLUDED.pushed_at >= github_repositories.pushed_at""";
+    // Scoped to the owner, so a repository transferred to another synced owner is not lost
+    private static final String DELETE_OWNED_SQL = "DELETE FROM github_repositories WHERE id = ? AND owner_login = ?";
+    private static final String DELETE_SQL = "DELETE FROM github_repositories WHERE id = ?";
+    private static final int LIST_PAGE_SIZE = 100;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final MirroredRepositoryRepository mirroredRepositoryRepository;
+    private final UserRepository userRepository;
+    private final GitHubClientFactory gitHubClientFactory;
+    private final ScheduledJobLock jobLock;
+    private final boolean enabled;
+    private final int pageSize;
+    private final int parallelism;
+    private final List<String> organizations;
+    private final String adminToken;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter upsertedCounter;
+    private final Counter deletedCounter;
+    private final Counter failedOwnersCounter;
+    
+    public GitHubRepositoryMirrorServiceImpl(JdbcTemplate jdbcTemplate,
+                                             MirroredRepositoryRepository mirroredRepositoryRepository,
+                                             UserRepository userRepository,
+                                             GitHubClientFactory gitHubClientFactory,
+                                             ScheduledJobLock jobLock,
+                                             @Value("${app.github.repository-mirror.enabled:true}") boolean enabled,
+                                             @Value("${app.github.repository-mirror.page-size:500}") int pageSize,
+                                             @Value("${app.github.repository-mirror.parallelism:8}") int parallelism,
+                                             @Value("${app.github.repository-mirror.organizations:}") String organizations,
+                                             @Value("${app.github.repository-mirror.admin-token:}") String adminToken,
+                                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mirroredRepositoryRepository = mirroredRepositoryRepository;
+        this.userRepository = userRepository;
+        this.gitHubClientFactory = gitHubClientFactory;
+        this.jobLock = jobLock;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.organizations = Arrays.stream(organizations.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .toList();
+        this.adminToken = adminToken;
+        if (!this.organizations.isEmpty() && !StringUtils.hasText(adminToken)) {
+            log.warn("app.github.repository-mirror.admin-token is not set, organization repositories will not be mirrored");
+        }
+        this.upsertedCounter = repositories(meterRegistry, "upserted");
+        this.deletedCounter = repositories(meterRegistry, "deleted");
+        this.failedOwnersCounter = Counter.builder("github.repository-mirror.failed-owners")
+                .description("Owners whose repositories could not be listed during a mirror sync")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${app.github.repository-mirror.cron:0 */30 * * * *}")
+    public void scheduledSync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            syncRepositories();
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled GitHub repository sync: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public GitHubRepositorySyncSummary syncRepositories() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("GitHub repository sync is already running");
+        }
+        try (ScheduledJobLock.Handle lock = jobLock.tryLock(JOB_NAME).orElseThrow(
+                () -> new IllegalStateException("GitHub repository sync is running on another node"));
+             ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                     new CustomizableThreadFactory("github-repository-mirror-"))) {
+            return run(executor);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private GitHubRepositorySyncSummary run(ExecutorService executor) {
+        long start = System.nanoTime();
+        List<Future<OwnerResult>> results = new ArrayList<>();
+        if (StringUtils.hasText(adminToken)) {
+            GitHub admin = gitHubClientFactory.newClient(adminToken);
+            for (String organization : organizations) {
+                results.add(executor.submit(() -> sync(organization.toLowerCase(Locale.ROOT),
+                        () -> admin.getOrganization(organization).listRepositories(LIST_PAGE_SIZE))));
+            }
+        }
+        
+        OwnerResult total = OwnerResult.EMPTY;
+        long lastUserId = 0;
+        List<Object[]> page;
+        while (!(page = jdbcTemplate.query(USERS_PAGE_SQL, (rs, rowNum) -> new Object[]{
+                rs.getLong("id"), rs.getString("github_token")}, lastUserId, pageSize)).isEmpty()) {
+            for (Object[] user : page) {
+                results.add(executor.submit(() -> syncUser((String) user[1])));
+            }
+            // Settle the page before reading the next one, so queued work stays bounded
+            total = total.plus(awaitAll(results));
+            results.clear();
+            lastUserId = (Long) page.get(page.size() - 1)[0];
+        }
+        total = total.plus(awaitAll(results));
+        
+        long durationMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("GitHub repository sync finished: {} owners, {} repositories, {} updated, {} deleted, {} failed owners in {} ms",
+                total.owners(), total.repositories(), total.updated(), total.deleted(), total.failed(), durationMs);
+        return GitHubRepositorySyncSummary.builder()
+                .owners(total.owners())
+                .repositories(total.repositories())
+                .updated(total.updated())
+                .deleted(total.deleted())
+                .failedOwners(total.failed())
+                .durationMs(durationMs)
+                .build();
+    }
+    
+    private OwnerResult syncUser(String githubToken) {
+        GitHub gitHub = gitHubClientFactory.newClient(githubToken);
+        GHMyself me;
+        try {
+            me = GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND, gitHub::getMyself);
+        } catch (IOException e) {
+            // Rejected tokens are the revalidation job's business
+            failedOwnersCounter.increment();
+            return OwnerResult.FAILED;
+        }
+        return sync(me.getLogin().toLowerCase(Locale.ROOT),
+                () -> me.listRepositories(LIST_PAGE_SIZE, GHMyself.RepositoryListFilter.OWNER));
+    }
+    
+    private OwnerResult sync(String owner, GitHubRequestPriority.GitHubCall<PagedIterable<GHRepository>> listing) {
+        List<GHRepository> remote;
+        try {
+            remote = GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND, () -> listing.call().toList());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Listing GitHub repositories of {} failed: {}", owner, e.getMessage());
+            failedOwnersCounter.increment();
+            return OwnerResult.FAILED;
+        }
+        
+        Map<Long, RepositoryRow> local = jdbcTemplate.query(OWNER_SQL, (rs, rowNum) -> new RepositoryRow(
+                        rs.getLong("id"),
+                        rs.getString("owner_login"),
+                        rs.getString("name"),
+                        rs.getString("full_name"),
+                        rs.getString("default_branch"),
+                        toInstant(rs.getTimestamp("pushed_at")),
+                        rs.getObject("size_kb", Integer.class),
+                        rs.getString("language")), owner)
+                .stream()
+                .collect(Collectors.toMap(RepositoryRow::id, row -> row));
+        
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> upserts = new ArrayList<>();
+        for (GHRepository repository : remote) {
+            RepositoryRow row = RepositoryRow.of(repository);
+            if (!row.equals(local.remove(row.id()))) {
+                upserts.add(row.toArgs(null, now));
+            }
+        }
+        List<Object[]> deletes = local.keySet().stream()
+                .map(id -> new Object[]{id, owner})
+                .toList();
+        
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            upsertedCounter.increment(upserts.size());
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_OWNED_SQL, deletes);
+            deletedCounter.increment(deletes.size());
+        }
+        return new OwnerResult(1, remote.size(), upserts.size(), deletes.size(), 0);
+    }
+    
+    @Override
+    public void record(GHRepository repository, String assignment) {
+        try {
+            jdbcTemplate.update(UPSERT_SQL, RepositoryRow.of(repository).toArgs(assignment, Timestamp.from(Instant.now())));
+            upsertedCounter.increment();
+        } catch (DataAccessException e) {
+            // The next sync picks the repository up, only the assignment would be missing
+            log.warn("Recording {} in the repository mirror failed: {}", repository.getFullName(), e.getMessage());
+        }
+    }
+    
+    @Override
+    public void applyWebhookEvents(List<RepositoryWebhookEvent> events) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (RepositoryWebhookEvent event : events) {
+            RepositoryRow row = RepositoryRow.of(event.repository());
+            if (row == null) {
+                continue;
+            }
+            if ("repository".equals(event.eventType()) && "deleted".equals(event.action())) {
+                deletes.add(new Object[]{row.id()});
+            } else {
+                upserts.add(row.toArgs(null, now));
+            }
+        }
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            upsertedCounter.increment(upserts.size());
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+            deletedCounter.increment(deletes.size());
+        }
+    }
+    
+    @Override
+    public List<MirroredRepositoryDto> find(String owner, String assignment, Instant pushedAfter, Pageable pageable) {
+        List<MirroredRepository> repositories;
+        if (StringUtils.hasText(owner)) {
+            String login = owner.toLowerCase(Locale.ROOT);
+            repositories = pushedAfter == null
+                    ? mirroredRepositoryRepository.findByOwnerLoginOrderByPushedAtDesc(login, pageable)
+                    : mirroredRepositoryRepository.findByOwnerLoginAndPushedAtAfterOrderByPushedAtDesc(login, pushedAfter, pageable);
+        } else if (StringUtils.hasText(assignment)) {
+            repositories = pushedAfter == null
+                    ? mirroredRepositoryRepository.findByAssignmentOrderByPushedAtDesc(assignment, pageable)
+                    : mirroredRepositoryRepository.findByAssignmentAndPushedAtAfterOrderByPushedAtDesc(assignment, pushedAfter, pageable);
+        } else if (pushedAfter != null) {
+            repositories = mirroredRepositoryRepository.findByPushedAtAfterOrderByPushedAtDesc(pushedAfter, pageable);
+        } else {
+            throw new IllegalArgumentException("Filter repositories by owner, assignment or pushedAfter");
+        }
+        return repositories.stream().map(GitHubRepositoryMirrorServiceImpl::toDto).toList();
+    }
+    
+    @Override
+    public List<MirroredRepositoryDto> findForUser(Long userId, Instant pushedAfter, Pageable pageable) {
+        String login = userRepository.findById(userId)
+                .map(User::getGithubUsername)
+                .orElse(null);
+        if (login == null) {
+            return List.of();
+        }
+        return find(login, null, pushedAfter, pageable);
+    }
+    
+    private static OwnerResult awaitAll(List<Future<OwnerResult>> results) {
+        OwnerResult total = OwnerResult.EMPTY;
+        for (Future<OwnerResult> result : results) {
+            try {
+                total = total.plus(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("GitHub repository sync was interrupted", e);
+            } catch (ExecutionException e) {
+                log.warn("GitHub repository sync failed for an owner", e.getCause());
+                total = total.plus(OwnerResult.FAILED);
+            }
+        }
+        return total;
+    }
+    
+    private static MirroredRepositoryDto toDto(MirroredRepository repository) {
+        return MirroredRepositoryDto.builder()
+                .id(repository.getId())
+                .owner(repository.getOwnerLogin())
+                .name(repository.getName())
+                .fullName(repository.getFullName())
+                .defaultBranch(repository.getDefaultBranch())
+                .pushedAt(repository.getPushedAt())
+                .sizeKb(repository.getSizeKb())
+                .language(repository.getLanguage())
+                .assignment(repository.getAssignment())
+                .syncedAt(repository.getSyncedAt())
+                .build();
+    }
+    
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+    
+    private static Counter repositories(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.repository-mirror.repositories")
+                .description("Mirrored repository rows written by sync runs and webhooks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private record RepositoryRow(long id, String ownerLogin, String name, String fullName, String defaultBranch,
+                                 Instant pushedAt, Integer sizeKb, String language) {
+        
+        static RepositoryRow of(GHRepository repository) {
+            Date pushedAt = repository.getPushedAt();
+            return new RepositoryRow(
+                    repository.getId(),
+                    repository.getOwnerName().toLowerCase(Locale.ROOT),
+                    repository.getName(),
+                    repository.getFullName(),
+                    repository.getDefaultBranch(),
+                    pushedAt == null ? null : pushedAt.toInstant(),
+                    repository.getSize(),
+                    repository.getLanguage());
+        }
+        
+        // Push payloads give timestamps as epoch seconds, repository payloads as ISO 8601
+        static RepositoryRow of(JsonNode repository) {
+            String owner = text(repository.path("owner").path("login"));
+            if (!repository.path("id").isNumber() || owner == null || text(repository.path("name")) == null) {
+                return null;
+            }
+            JsonNode pushedAt = repository.path("pushed_at");
+            Instant pushed;
+            try {
+                pushed = pushedAt.isNumber() ? Instant.ofEpochSecond(pushedAt.asLong())
+                        : pushedAt.isTextual() ? Instant.parse(pushedAt.asText()) : null;
+            } catch (DateTimeParseException e) {
+                pushed = null;
+            }
+            return new RepositoryRow(
+                    repository.path("id").asLong(),
+                    owner.toLowerCase(Locale.ROOT),
+                    text(repository.path("name")),
+                    Objects.requireNonNullElse(text(repository.path("full_name")), owner + "/" + text(repository.path("name"))),
+                    text(repository.path("default_branch")),
+                    pushed,
+                    repository.path("size").isNumber() ? repository.path("size").asInt() : null,
+                    text(repository.path("language")));
+        }
+        
+        Object[] toArgs(String assignment, Timestamp syncedAt) {
+            return new Object[]{id, ownerLogin, name, fullName, defaultBranch,
+                    pushedAt == null ? null : Timestamp.from(pushedAt), sizeKb, language, assignment, syncedAt};
+        }
+        
+        private static String text(JsonNode node) {
+            return node.isMissingNode() || node.isNull() ? null : node.asText();
+        }
+    }
+    
+    private record OwnerResult(long owners, long repositories, long updated, long deleted, long failed) {
+        
+        static final OwnerResult EMPTY = new OwnerResult(0, 0, 0, 0, 0);
+        static final OwnerResult FAILED = new OwnerResult(1, 0, 0, 0, 1);
+        
+        OwnerResult plus(OwnerResult other) {
+            return new OwnerResult(owners + other.owners, repositories + other.repositories,
+                    updated + other.updated, deleted + other.deleted, failed + other.failed);
+        }
+    }
+}
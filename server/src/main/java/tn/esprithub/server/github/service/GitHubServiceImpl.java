@@ -2,14 +2,19 @@ package tn.esprithub.server.github.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.kohsuke.github.GitHub;
-import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.GHMyself;
+import org.kohsuke.github.HttpException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import tn.esprithub.server.common.exception.ServiceUnavailableException;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+import tn.esprithub.server.github.client.GitHubUnavailableException;
 import tn.esprithub.server.github.dto.GitHubUserInfo;
 import tn.esprithub.server.user.service.IUserService;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -17,6 +22,8 @@ import java.io.IOException;
 public class GitHubServiceImpl implements IGitHubService {
     
     private final IUserService userService;
+    private final GitHubClientFactory gitHubClientFactory;
+    private final GitHubUserInfoCache gitHubUserInfoCache;
     
     @Value("${spring.security.oauth2.client.registration.github.client-id}")
     private String githubClientId;
@@ -25,47 +32,78 @@ public class GitHubServiceImpl implements IGitHubService {
     private String githubClientSecret;
     
     public GitHubUserInfo getUserInfo(String accessToken) {
+        Optional<GitHubUserInfo> userInfo;
         try {
-            GitHub github = new GitHubBuilder().withOAuthToken(accessToken).build();
-            var githubUser = github.getMyself();
-            
-            return GitHubUserInfo.builder()
-                    .id(githubUser.getId())
-                    .login(githubUser.getLogin())
-                    .name(githubUser.getName())
-                    .email(githubUser.getEmail())
-                    .avatarUrl(githubUser.getAvatarUrl())
-                    .build();
-                    
+            userInfo = gitHubUserInfoCache.lookup(accessToken, () -> lookupUserInfo(accessToken));
+        } catch (GitHubUnavailableException e) {
+            throw new ServiceUnavailableException("GitHub is temporarily unavailable",
+                    Math.max(1, e.getRetryAfter().toSeconds()));
         } catch (IOException e) {
             log.error("Error fetching GitHub user info", e);
             throw new RuntimeException("Failed to fetch GitHub user information", e);
         }
+        return userInfo.orElseThrow(() -> new IllegalArgumentException("Invalid GitHub token"));
     }
     
     public boolean validateGitHubToken(String accessToken) {
         try {
-            GitHub github = new GitHubBuilder().withOAuthToken(accessToken).build();
-            github.getMyself(); // This will throw an exception if the token is invalid
-            return true;
-        } catch (IOException e) {
+            if (gitHubUserInfoCache.lookup(accessToken, () -> lookupUserInfo(accessToken)).isPresent()) {
+                return true;
+            }
             log.warn("Invalid GitHub token provided");
-            return false;
+        } catch (IOException e) {
+            log.warn("Could not validate GitHub token: {}", e.getMessage());
         }
+        return false;
     }
     
-    public void linkGitHubAccount(String userEmail, String githubToken) {
-        if (!validateGitHubToken(githubToken)) {
-            throw new IllegalArgumentException("Invalid GitHub token");
-        }
-        
+    public GitHubUserInfo linkGitHubAccount(String userEmail, String githubToken) {
+        // Fetching the profile is the validation: one round-trip instead of two
+        GitHubUserInfo githubUserInfo;
         try {
-            GitHubUserInfo githubUserInfo = getUserInfo(githubToken);
-            userService.updateGithubToken(userEmail, githubToken, githubUserInfo.getLogin());
-            log.info("Successfully linked GitHub account for user: {}", userEmail);
-        } catch (Exception e) {
+            githubUserInfo = fetchUserInfo(githubToken);
+        } catch (HttpException e) {
+            if (e.getResponseCode() == HttpStatus.UNAUTHORIZED.value()) {
+                throw new IllegalArgumentException("Invalid GitHub token");
+            }
             log.error("Failed to link GitHub account for user: {}", userEmail, e);
             throw new RuntimeException("Failed to link GitHub account", e);
+        } catch (IOException e) {
+            log.error("Failed to link GitHub account for user: {}", userEmail, e);
+            throw new RuntimeException("Failed to link GitHub account", e);
+        }
+        
+        userService.updateGithubToken(userEmail, githubToken, githubUserInfo.getLogin(), githubUserInfo.getId());
+        log.info("Successfully linked GitHub account for user: {}", userEmail);
+        return githubUserInfo;
+    }
+    
+    private Optional<GitHubUserInfo> lookupUserInfo(String accessToken) throws IOException {
+        try {
+            return Optional.of(fetchUserInfo(accessToken));
+        } catch (HttpException e) {
+            if (e.getResponseCode() == HttpStatus.UNAUTHORIZED.value()) {
+                return Optional.empty();
+            }
+            throw e;
         }
     }
+    
+    private GitHubUserInfo fetchUserInfo(String accessToken) throws IOException {
+        GHMyself githubUser;
+        try {
+            githubUser = gitHubClientFactory.forToken(accessToken).getMyself();
+        } catch (IOException e) {
+            gitHubClientFactory.invalidate(accessToken);
+            throw e;
+        }
+        
+        return GitHubUserInfo.builder()
+                .id(githubUser.getId())
+                .login(githubUser.getLogin())
+                .name(githubUser.getName())
+                .email(githubUser.getEmail())
+                .avatarUrl(githubUser.getAvatarUrl())
+                .build();
+    }
 }
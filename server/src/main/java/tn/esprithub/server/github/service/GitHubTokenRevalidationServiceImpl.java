@@ -0,0 +1,292 @@
+package tn.esprithub.server.github.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kohsuke.github.HttpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+import tn.esprithub.server.github.client.GitHubRequestPriority;
+import tn.esprithub.server.github.dto.GitHubRevalidationSummary;
+import tn.esprithub.server.github.entity.SyncCheckpoint;
+import tn.esprithub.server.github.repository.SyncCheckpointRepository;
+import tn.esprithub.server.security.TokenBucketRateLimiter;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Checks every stored GitHub token against {@code /user} and clears the ones GitHub rejects
+ * with 401, so everything that keys off {@code github_token IS NOT NULL} (dashboard stats,
+ * {@code hasGithubToken}, the login {@code requiresGithubAuth} flag) reflects reality.
+ * Tokens are checked in parallel under a fixed rate budget; network errors and other
+ * statuses leave the token alone. Pages are keyset-ordered, checkpointed and guarded by a
+ * {@link ScheduledJobLock} like the profile sync.
+ */
+@Service
+@Slf4j
+public class GitHubTokenRevalidationServiceImpl implements IGitHubTokenRevalidationService {
+    
+    static final String JOB_NAME = "github-token-revalidation";
+    private static final String RATE_KEY = "revalidation";
+    
+    private static final String PAGE_SQL = """
+            SELECT id, github_token
+            FROM users
+            WHERE github_token IS NOT NULL AND id > ?
+            ORDER BY id
+            LIMIT ?""";
+    // Matching on the token leaves rows alone whose owner re-linked while the run was going
+    private static final String INVALIDATE_SQL =
+            "UPDATE users SET github_token = NULL, updated_at = ? WHERE id = ? AND github_token = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SyncCheckpointRepository checkpointRepository;
+    private final GitHubClientFactory gitHubClientFactory;
+    private final GitHubUserInfoCache gitHubUserInfoCache;
+    private final ScheduledJobLock jobLock;
+    private final boolean enabled;
+    private final int pageSize;
+    private final int parallelism;
+    private final TokenBucketRateLimiter rateBudget;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Timer latencyTimer;
+    private final Counter validCounter;
+    private final Counter invalidCounter;
+    private final Counter failedCounter;
+    
+    public GitHubTokenRevalidationServiceImpl(JdbcTemplate jdbcTemplate,
+                                              SyncCheckpointRepository checkpointRepository,
+                                              GitHubClientFactory gitHubClientFactory,
+                                              GitHubUserInfoCache gitHubUserInfoCache,
+                                              ScheduledJobLock jobLock,
+                                              @Value("${app.github.token-revalidation.enabled:true}") boolean enabled,
+                                              @Value("${app.github.token-revalidation.page-size:500}") int pageSize,
+                                              @Value("${app.github.token-revalidation.parallelism:8}") int parallelism,
+                                              @Value("${app.github.token-revalidation.max-per-second:20}") int maxPerSecond,
+                                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.gitHubClientFactory = gitHubClientFactory;
+        this.gitHubUserInfoCache = gitHubUserInfoCache;
+        this.jobLock = jobLock;
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.rateBudget = new TokenBucketRateLimiter(maxPerSecond, Duration.ofSeconds(1), 1);
+        this.latencyTimer = Timer.builder("github.token-revalidation.latency")
+                .description("Latency of a single GitHub token check")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.validCounter = tokens(meterRegistry, "valid");
+        this.invalidCounter = tokens(meterRegistry, "invalid");
+        this.failedCounter = tokens(meterRegistry, "failed");
+    }
+    
+    @Scheduled(cron = "${app.github.token-revalidation.cron:0 0 */6 * * *}")
+    public void scheduledRevalidation() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            revalidateTokens();
+        } catch (IllegalStateException e) {
+            log.info("Skipping scheduled GitHub token revalidation: {}", e.getMessage());
+        }
+    }
+    
+    public GitHubRevalidationSummary revalidateTokens() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("GitHub token revalidation is already running");
+        }
+        try (ScheduledJobLock.Handle lock = jobLock.tryLock(JOB_NAME).orElseThrow(
+                () -> new IllegalStateException("GitHub token revalidation is running on another node"));
+             ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                     new CustomizableThreadFactory("github-token-check-"))) {
+            return run(executor);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private GitHubRevalidationSummary run(ExecutorService executor) {
+        SyncCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                .orElseGet(() -> SyncCheckpoint.builder().jobName(JOB_NAME).lastUserId(0L).build());
+        boolean resumed = checkpoint.getLastUserId() > 0;
+        if (!resumed) {
+            checkpoint.setRunStartedAt(Instant.now());
+        }
+        
+        long start = System.nanoTime();
+        long invalidated = 0;
+        long failed = 0;
+        long lastUserId = checkpoint.getLastUserId();
+        // Per-run latencies for the summary percentiles; the timer covers all runs
+        LatencyRecorder latencies = new LatencyRecorder();
+        
+        List<StoredToken> page;
+        while (!(page = jdbcTemplate.query(PAGE_SQL,
+                (rs, rowNum) -> new StoredToken(rs.getLong("id"), rs.getString("github_token")),
+                lastUserId, pageSize)).isEmpty()) {
+            
+            List<Future<TokenState>> states = new ArrayList<>(page.size());
+            for (StoredToken token : page) {
+                states.add(executor.submit(() -> check(token, latencies)));
+            }
+            
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> invalidRows = new ArrayList<>();
+            for (int i = 0; i < page.size(); i++) {
+                StoredToken token = page.get(i);
+                switch (await(states.get(i))) {
+                    case VALID -> validCounter.increment();
+                    case INVALID -> {
+                        invalidCounter.increment();
+                        invalidRows.add(new Object[]{now, token.userId(), token.githubToken()});
+                        gitHubClientFactory.invalidate(token.githubToken());
+                        gitHubUserInfoCache.invalidate(token.githubToken());
+                    }
+                    case UNKNOWN -> {
+                        failedCounter.increment();
+                        failed++;
+                    }
+                }
+            }
+            if (!invalidRows.isEmpty()) {
+                int[] counts = jdbcTemplate.batchUpdate(INVALIDATE_SQL, invalidRows);
+                invalidated += Arrays.stream(counts).filter(count -> count > 0).count();
+            }
+            
+            lastUserId = page.get(page.size() - 1).userId();
+            checkpoint.setLastUserId(lastUserId);
+            checkpoint.setUpdatedAt(Instant.now());
+            checkpointRepository.save(checkpoint);
+        }
+        
+        checkpoint.setLastUserId(0L);
+        checkpoint.setLastCompletedAt(Instant.now());
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        
+        GitHubRevalidationSummary summary = latencies.summarize()
+                .resumed(resumed)
+                .invalidated(invalidated)
+                .failed(failed)
+                .durationMs((System.nanoTime() - start) / 1_000_000)
+                .build();
+        log.info("GitHub token revalidation finished: {} checked, {} invalidated, {} failed in {} ms "
+                        + "(p50 {} ms, p95 {} ms, p99 {} ms)",
+                summary.getChecked(), summary.getInvalidated(), summary.getFailed(), summary.getDurationMs(),
+                summary.getP50Ms(), summary.getP95Ms(), summary.getP99Ms());
+        return summary;
+    }
+    
+    private TokenState check(StoredToken token, LatencyRecorder latencies) {
+        awaitRateBudget();
+        long start = System.nanoTime();
+        try {
+            GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND,
+                    () -> gitHubClientFactory.newClient(token.githubToken()).getMyself());
+            return TokenState.VALID;
+        } catch (HttpException e) {
+            if (e.getResponseCode() == HttpStatus.UNAUTHORIZED.value()) {
+                return TokenState.INVALID;
+            }
+            log.warn("Could not revalidate GitHub token of user {}: HTTP {}", token.userId(), e.getResponseCode());
+            return TokenState.UNKNOWN;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not revalidate GitHub token of user {}: {}", token.userId(), e.getMessage());
+            return TokenState.UNKNOWN;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            latencyTimer.record(nanos, TimeUnit.NANOSECONDS);
+            latencies.record(nanos);
+        }
+    }
+    
+    private void awaitRateBudget() {
+        long waitNanos;
+        while ((waitNanos = rateBudget.tryAcquire(RATE_KEY)) > 0) {
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("GitHub token revalidation was interrupted");
+            }
+        }
+    }
+    
+    private static TokenState await(Future<TokenState> state) {
+        try {
+            return state.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("GitHub token revalidation was interrupted", e);
+        } catch (ExecutionException e) {
+            return TokenState.UNKNOWN;
+        }
+    }
+    
+    private static Counter tokens(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.token-revalidation.tokens")
+                .description("Stored GitHub tokens checked by the revalidation job")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private enum TokenState {
+        VALID, INVALID, UNKNOWN
+    }
+    
+    private record StoredToken(long userId, String githubToken) {
+    }
+    
+    private static final class LatencyRecorder {
+        
+        private long[] nanos = new long[1024];
+        private int size;
+        
+        synchronized void record(long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+        }
+        
+        synchronized GitHubRevalidationSummary.GitHubRevalidationSummaryBuilder summarize() {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return GitHubRevalidationSummary.builder()
+                    .checked(size)
+                    .p50Ms(percentile(sorted, 0.50))
+                    .p95Ms(percentile(sorted, 0.95))
+                    .p99Ms(percentile(sorted, 0.99))
+                    .maxMs(size == 0 ? 0 : sorted[size - 1] / 1_000_000.0);
+        }
+        
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package tn.esprithub.server.github.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tn.esprithub.server.github.client.GitHubRequestPriority;
+import tn.esprithub.server.github.dto.GitHubUserInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Short-lived results of {@code /user} lookups, shared by token validation and user-info
+ * requests. Keys are SHA-256 digests, never raw tokens. A rejected token is cached as well
+ * (empty result) and for longer, since a revoked token does not become valid again. Errors
+ * other than a rejection are not cached.
+ * <p>
+ * Concurrent lookups for the same token are coalesced: the first caller runs the GitHub call
+ * on its own thread and the others wait for its result.
+ */
+@Component
+public class GitHubUserInfoCache {
+    
+    private final boolean enabled;
+    private final AsyncCache<String, Optional<GitHubUserInfo>> cache;
+    private final Counter hits;
+    private final Counter negativeHits;
+    private final Counter coalesced;
+    private final Counter misses;
+    
+    public GitHubUserInfoCache(@Value("${app.github.lookup-cache.enabled:true}") boolean enabled,
+                               @Value("${app.github.lookup-cache.ttl:1m}") Duration ttl,
+                               @Value("${app.github.lookup-cache.negative-ttl:10m}") Duration negativeTtl,
+                               @Value("${app.github.lookup-cache.maximum-size:10000}") long maximumSize,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new LookupExpiry(ttl, negativeTtl))
+                .buildAsync();
+        this.hits = lookups(meterRegistry, "hit");
+        this.negativeHits = lookups(meterRegistry, "negative_hit");
+        this.coalesced = lookups(meterRegistry, "coalesced");
+        this.misses = lookups(meterRegistry, "miss");
+        Gauge.builder("github.lookup-cache.size", cache, c -> c.synchronous().estimatedSize())
+                .register(meterRegistry);
+    }
+    
+    /**
+     * @return the user behind the token, or empty when GitHub rejects the token
+     */
+    public Optional<GitHubUserInfo> lookup(String accessToken,
+                                           GitHubRequestPriority.GitHubCall<Optional<GitHubUserInfo>> loader)
+            throws IOException {
+        if (!enabled) {
+            return loader.call();
+        }
+        
+        String key = digest(accessToken);
+        CompletableFuture<Optional<GitHubUserInfo>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<GitHubUserInfo>> existing = cache.asMap().putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+        
+        misses.increment();
+        try {
+            Optional<GitHubUserInfo> result = loader.call();
+            flight.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            // A failed future is dropped by the cache, so the next caller retries
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    public void invalidate(String accessToken) {
+        cache.synchronous().invalidate(digest(accessToken));
+    }
+    
+    // Each lookup counts under one outcome: coalesced when it waited on a call in flight
+    private Optional<GitHubUserInfo> await(CompletableFuture<Optional<GitHubUserInfo>> existing) throws IOException {
+        boolean inFlight = !existing.isDone();
+        if (inFlight) {
+            coalesced.increment();
+        }
+        Optional<GitHubUserInfo> result;
+        try {
+            result = existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+        if (!inFlight) {
+            (result.isPresent() ? hits : negativeHits).increment();
+        }
+        return result;
+    }
+    
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.lookup-cache.requests")
+                .description("GitHub token and user-info lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private record LookupExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, Optional<GitHubUserInfo>> {
+        
+        @Override
+        public long expireAfterCreate(String key, Optional<GitHubUserInfo> value, long currentTime) {
+            return value.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, Optional<GitHubUserInfo> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, Optional<GitHubUserInfo> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package tn.esprithub.server.github.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import tn.esprithub.server.common.exception.ServiceUnavailableException;
+import tn.esprithub.server.github.dto.RepositoryWebhookEvent;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Takes GitHub webhook deliveries off the request thread. The request path only checks the
+ * HMAC signature and offers the raw payload to a bounded queue, so it answers in well under a
+ * millisecond of work and a full queue turns into 503 instead of unbounded memory. Consumer
+ * threads drain the queue in batches, parse the payloads and write each batch with a single
+ * multi-row {@code INSERT}; redelivered deliveries are dropped by the primary key. A batch that
+ * cannot be written is retried until the database is back, so during an outage the queue fills
+ * and new deliveries get 503 instead of being acknowledged and then lost.
+ */
+@Service
+@Slf4j
+public class GitHubWebhookServiceImpl implements IGitHubWebhookService, DisposableBean {
+    
+    static final Set<String> HANDLED_EVENTS = Set.of("push", "pull_request", "repository");
+    // Events whose repository object is applied to the repository mirror
+    static final Set<String> MIRRORED_EVENTS = Set.of("push", "repository");
+    
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final long RETRY_AFTER_SECONDS = 10;
+    // Attempts left to the batches still held when the application shuts down
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final String INSERT_SQL = "INSERT INTO github_webhook_events (delivery_id, event_type, action, "
+            + "repository_id, repository_full_name, organization, sender, payload, received_at, persisted_at) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 10;
+    // PostgreSQL accepts at most 65535 bind parameters per statement
+    private static final int MAX_BATCH_SIZE = 65_535 / COLUMNS;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final IGitHubRepositoryMirrorService repositoryMirror;
+    private final SecretKeySpec signingKey;
+    private final Set<String> organizations;
+    private final int batchSize;
+    private final BlockingQueue<Delivery> queue;
+    private final ExecutorService consumers;
+    private volatile boolean stopping;
+    
+    private final AtomicLong queuedTotal = new AtomicLong();
+    private final AtomicLong persistedTotal = new AtomicLong();
+    private final AtomicLong ingestRate = new AtomicLong();
+    private final AtomicLong persistRate = new AtomicLong();
+    private long lastQueuedTotal;
+    private long lastPersistedTotal;
+    private long lastRateSample = System.nanoTime();
+    
+    private final Counter queuedCounter;
+    private final Counter persistedCounter;
+    private final Counter ignoredCounter;
+    private final Counter rejectedCounter;
+    private final Counter filteredCounter;
+    private final Counter failedCounter;
+    private final Timer persistDelay;
+    
+    public GitHubWebhookServiceImpl(JdbcTemplate jdbcTemplate,
+                                    ObjectMapper objectMapper,
+                                    IGitHubRepositoryMirrorService repositoryMirror,
+                                    @Value("${app.github.webhooks.secret:}") String secret,
+                                    @Value("${app.github.webhooks.organizations:}") String organizations,
+                                    @Value("${app.github.webhooks.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${app.github.webhooks.consumers:2}") int consumerCount,
+                                    @Value("${app.github.webhooks.batch-size:200}") int batchSize,
+                                    MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.repositoryMirror = repositoryMirror;
+        this.signingKey = StringUtils.hasText(secret)
+                ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM)
+                : null;
+        this.organizations = Arrays.stream(organizations.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(login -> login.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.batchSize = Math.min(batchSize, MAX_BATCH_SIZE);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (signingKey == null) {
+            log.warn("app.github.webhooks.secret is not set, all GitHub webhook deliveries will be rejected");
+        }
+        
+        this.queuedCounter = events(meterRegistry, "queued");
+        this.persistedCounter = events(meterRegistry, "persisted");
+        this.ignoredCounter = events(meterRegistry, "ignored");
+        this.rejectedCounter = events(meterRegistry, "queue_full");
+        this.filteredCounter = events(meterRegistry, "other_organization");
+        this.failedCounter = events(meterRegistry, "failed");
+        this.persistDelay = Timer.builder("github.webhooks.persist.delay")
+                .description("Time from receiving a webhook delivery to committing it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("github.webhooks.queue.depth", queue, BlockingQueue::size)
+                .description("Webhook deliveries waiting to be persisted")
+                .register(meterRegistry);
+        Gauge.builder("github.webhooks.lag", this, GitHubWebhookServiceImpl::lagSeconds)
+                .description("Age of the oldest webhook delivery still waiting to be persisted")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("github.webhooks.ingest.rate", ingestRate, r -> Double.longBitsToDouble(r.get()))
+                .description("Webhook deliveries queued per second")
+                .baseUnit("events/s")
+                .register(meterRegistry);
+        Gauge.builder("github.webhooks.persist.rate", persistRate, r -> Double.longBitsToDouble(r.get()))
+                .description("Webhook deliveries persisted per second")
+                .baseUnit("events/s")
+                .register(meterRegistry);
+        
+        this.consumers = Executors.newFixedThreadPool(consumerCount, new CustomizableThreadFactory("github-webhook-"));
+        for (int i = 0; i < consumerCount; i++) {
+            consumers.execute(this::consume);
+        }
+    }
+    
+    public boolean isSignatureValid(byte[] payload, String signature) {
+        if (signingKey == null || signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            expected = mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+        byte[] actual;
+        try {
+            actual = HexFormat.of().parseHex(signature.substring(SIGNATURE_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // Constant time, so the signature cannot be guessed byte by byte
+        return MessageDigest.isEqual(expected, actual);
+    }
+    
+    public boolean accept(String eventType, String deliveryId, byte[] payload) {
+        if (!HANDLED_EVENTS.contains(eventType)) {
+            ignoredCounter.increment();
+            return false;
+        }
+        if (!queue.offer(new Delivery(deliveryId, eventType, payload, Instant.now()))) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Webhook queue is full, please redeliver later", RETRY_AFTER_SECONDS);
+        }
+        queuedTotal.incrementAndGet();
+        queuedCounter.increment();
+        return true;
+    }
+    
+    @Scheduled(fixedRateString = "${app.github.webhooks.rate-interval:10s}")
+    public synchronized void sampleRates() {
+        long now = System.nanoTime();
+        double seconds = (now - lastRateSample) / 1_000_000_000.0;
+        long queued = queuedTotal.get();
+        long persisted = persistedTotal.get();
+        if (seconds > 0) {
+            ingestRate.set(Double.doubleToLongBits((queued - lastQueuedTotal) / seconds));
+            persistRate.set(Double.doubleToLongBits((persisted - lastPersistedTotal) / seconds));
+        }
+        lastQueuedTotal = queued;
+        lastPersistedTotal = persisted;
+        lastRateSample = now;
+    }
+    
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        consumers.shutdown();
+        if (!consumers.awaitTermination(10, TimeUnit.SECONDS)) {
+            consumers.shutdownNow();
+        }
+        // Whatever is still queued gets one last attempt, GitHub does not redeliver on its own
+        List<Delivery> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            persist(remaining);
+        }
+    }
+    
+    private void consume() {
+        List<Delivery> batch = new ArrayList<>(batchSize);
+        while (!stopping) {
+            try {
+                Delivery first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("GitHub webhook consumer failed on a batch of {} deliveries", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void persist(List<Delivery> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        List<RepositoryWebhookEvent> repositoryEvents = new ArrayList<>();
+        for (Delivery delivery : batch) {
+            Object[] row = toRow(delivery, repositoryEvents);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        
+        String sql = INSERT_SQL + String.join(", ", Collections.nCopies(rows.size(), INSERT_ROW))
+                + " ON CONFLICT (delivery_id) DO NOTHING RETURNING delivery_id";
+        Timestamp persistedAt = Timestamp.from(Instant.now());
+        Object[] args = new Object[rows.size() * COLUMNS];
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i)[COLUMNS - 1] = persistedAt;
+            System.arraycopy(rows.get(i), 0, args, i * COLUMNS, COLUMNS);
+        }
+        
+        List<String> inserted;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                inserted = jdbcTemplate.queryForList(sql, String.class, args);
+                break;
+            } catch (DataAccessException e) {
+                if (stopping && attempt >= SHUTDOWN_ATTEMPTS) {
+                    failedCounter.increment(rows.size());
+                    log.error("Dropping {} GitHub webhook deliveries on shutdown after {} attempts", rows.size(), attempt, e);
+                    return;
+                }
+                log.warn("Persisting {} GitHub webhook deliveries failed (attempt {}), retrying: {}",
+                        rows.size(), attempt, e.getMessage());
+                if (!backOff(attempt)) {
+                    failedCounter.increment(rows.size());
+                    log.error("Dropping {} GitHub webhook deliveries, interrupted while retrying", rows.size());
+                    return;
+                }
+            }
+        }
+        
+        // Redelivered events already stored are skipped by ON CONFLICT and not counted again
+        Instant now = Instant.now();
+        Map<String, Instant> receivedAt = new HashMap<>();
+        batch.forEach(delivery -> receivedAt.put(delivery.deliveryId(), delivery.receivedAt()));
+        inserted.forEach(deliveryId -> persistDelay.record(Duration.between(receivedAt.get(deliveryId), now)));
+        persistedTotal.addAndGet(inserted.size());
+        persistedCounter.increment(inserted.size());
+        
+        if (!repositoryEvents.isEmpty()) {
+            try {
+                repositoryMirror.applyWebhookEvents(repositoryEvents);
+            } catch (DataAccessException e) {
+                // The delivery is stored; the next mirror sync catches the repository up
+                log.warn("Applying {} GitHub webhook deliveries to the repository mirror failed: {}",
+                        repositoryEvents.size(), e.getMessage());
+            }
+        }
+    }
+    
+    private Object[] toRow(Delivery delivery, List<RepositoryWebhookEvent> repositoryEvents) {
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(delivery.payload());
+        } catch (IOException e) {
+            failedCounter.increment();
+            log.warn("Discarding GitHub webhook delivery {} with unreadable payload", delivery.deliveryId());
+            return null;
+        }
+        
+        String organization = text(payload.path("organization").path("login"));
+        if (!organizations.isEmpty()
+                && (organization == null || !organizations.contains(organization.toLowerCase(Locale.ROOT)))) {
+            filteredCounter.increment();
+            return null;
+        }
+        
+        JsonNode repository = payload.path("repository");
+        if (MIRRORED_EVENTS.contains(delivery.eventType()) && repository.isObject()) {
+            repositoryEvents.add(new RepositoryWebhookEvent(delivery.eventType(), text(payload.path("action")), repository));
+        }
+        return new Object[]{
+                delivery.deliveryId(),
+                delivery.eventType(),
+                text(payload.path("action")),
+                repository.path("id").isNumber() ? repository.path("id").asLong() : null,
+                text(repository.path("full_name")),
+                organization,
+                text(payload.path("sender").path("login")),
+                new String(delivery.payload(), StandardCharsets.UTF_8),
+                Timestamp.from(delivery.receivedAt()),
+                null
+        };
+    }
+    
+    private boolean backOff(int attempt) {
+        try {
+            Duration backoff = Duration.ofSeconds(1L << Math.min(attempt - 1, 5));
+            Thread.sleep(backoff.compareTo(MAX_BACKOFF) < 0 ? backoff : MAX_BACKOFF);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private double lagSeconds() {
+        Delivery oldest = queue.peek();
+        return oldest == null ? 0 : Duration.between(oldest.receivedAt(), Instant.now()).toMillis() / 1000.0;
+    }
+    
+    private static String text(JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+    
+    private static Counter events(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("github.webhooks.events")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private record Delivery(String deliveryId, String eventType, byte[] payload, Instant receivedAt) {
+    }
+}
@@ -0,0 +1,15 @@
+package tn.esprithub.server.github.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprithub.server.github.dto.GitHubLinkJob;
+
+import java.util.Optional;
+
+public interface IGitHubLinkJobService {
+    
+    GitHubLinkJob submit(Long userId, String userEmail, String githubToken);
+    
+    Optional<GitHubLinkJob> getJob(String jobId, Long userId);
+    
+    Optional<SseEmitter> subscribe(String jobId, Long userId);
+}
@@ -0,0 +1,8 @@
+package tn.esprithub.server.github.service;
+
+import tn.esprithub.server.github.dto.GitHubMembershipSyncSummary;
+
+public interface IGitHubMembershipSyncService {
+    
+    GitHubMembershipSyncSummary syncMemberships();
+}
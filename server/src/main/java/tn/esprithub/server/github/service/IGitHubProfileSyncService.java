@@ -0,0 +1,8 @@
+package tn.esprithub.server.github.service;
+
+import tn.esprithub.server.github.dto.GitHubSyncSummary;
+
+public interface IGitHubProfileSyncService {
+    
+    GitHubSyncSummary syncProfiles();
+}
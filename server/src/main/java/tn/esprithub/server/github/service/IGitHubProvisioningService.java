@@ -0,0 +1,19 @@
+package tn.esprithub.server.github.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.esprithub.server.github.dto.ProvisioningJobSummary;
+import tn.esprithub.server.github.dto.RepositoryProvisioningRequest;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface IGitHubProvisioningService {
+    
+    ProvisioningJobSummary submit(Long teacherId, RepositoryProvisioningRequest request);
+    
+    Optional<ProvisioningJobSummary> getJob(UUID jobId, Long teacherId);
+    
+    Optional<ProvisioningJobSummary> retryFailed(UUID jobId, Long teacherId);
+    
+    Optional<SseEmitter> subscribe(UUID jobId, Long teacherId);
+}
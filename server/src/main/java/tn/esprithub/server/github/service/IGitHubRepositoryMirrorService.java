@@ -0,0 +1,23 @@
+package tn.esprithub.server.github.service;
+
+import org.kohsuke.github.GHRepository;
+import org.springframework.data.domain.Pageable;
+import tn.esprithub.server.github.dto.GitHubRepositorySyncSummary;
+import tn.esprithub.server.github.dto.MirroredRepositoryDto;
+import tn.esprithub.server.github.dto.RepositoryWebhookEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface IGitHubRepositoryMirrorService {
+    
+    GitHubRepositorySyncSummary syncRepositories();
+    
+    void record(GHRepository repository, String assignment);
+    
+    void applyWebhookEvents(List<RepositoryWebhookEvent> events);
+    
+    List<MirroredRepositoryDto> find(String owner, String assignment, Instant pushedAfter, Pageable pageable);
+    
+    List<MirroredRepositoryDto> findForUser(Long userId, Instant pushedAfter, Pageable pageable);
+}
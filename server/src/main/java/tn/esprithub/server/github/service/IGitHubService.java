@@ -8,5 +8,5 @@ public interface IGitHubService {
     
     boolean validateGitHubToken(String accessToken);
     
-    void linkGitHubAccount(String userEmail, String githubToken);
+    GitHubUserInfo linkGitHubAccount(String userEmail, String githubToken);
 }
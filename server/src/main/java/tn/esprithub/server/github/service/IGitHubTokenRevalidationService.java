@@ -0,0 +1,8 @@
+package tn.esprithub.server.github.service;
+
+import tn.esprithub.server.github.dto.GitHubRevalidationSummary;
+
+public interface IGitHubTokenRevalidationService {
+    
+    GitHubRevalidationSummary revalidateTokens();
+}
@@ -0,0 +1,12 @@
+package tn.esprithub.server.github.service;
+
+public interface IGitHubWebhookService {
+    
+    boolean isSignatureValid(byte[] payload, String signature);
+    
+    /**
+     * Queues a delivery for persistence. Returns {@code false} for event types that are not
+     * handled; throws {@code ServiceUnavailableException} when the queue is full.
+     */
+    boolean accept(String eventType, String deliveryId, byte[] payload);
+}
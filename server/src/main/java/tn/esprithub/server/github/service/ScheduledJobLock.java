@@ -0,0 +1,89 @@
+package tn.esprithub.server.github.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps a background job to one node at a time with a PostgreSQL session advisory lock named
+ * after the job. The lock lives on a pooled connection set aside until the returned handle is
+ * closed; if the node dies its session ends and the lock goes with it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledJobLock {
+    
+    private final DataSource dataSource;
+    
+    /**
+     * @return a handle to close when the job is done, or empty when another node holds the lock
+     */
+    public Optional<Handle> tryLock(String jobName) {
+        long key = UUID.nameUUIDFromBytes(jobName.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, key);
+                try (ResultSet result = statement.executeQuery()) {
+                    if (result.next() && result.getBoolean(1)) {
+                        return Optional.of(new Handle(jobName, key, connection));
+                    }
+                }
+            }
+            connection.close();
+            return Optional.empty();
+        } catch (SQLException e) {
+            discard(connection);
+            throw new DataAccessResourceFailureException("Could not lock background job " + jobName, e);
+        }
+    }
+    
+    private static void discard(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            // Aborting drops the physical connection, so a lock it may hold cannot leak back into the pool
+            connection.abort(Runnable::run);
+        } catch (SQLException e) {
+            log.warn("Could not discard connection: {}", e.getMessage());
+        }
+    }
+    
+    public static final class Handle implements AutoCloseable {
+        
+        private final String jobName;
+        private final long key;
+        private final Connection connection;
+        
+        private Handle(String jobName, long key, Connection connection) {
+            this.jobName = jobName;
+            this.key = key;
+            this.connection = connection;
+        }
+        
+        @Override
+        public void close() {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                statement.setLong(1, key);
+                statement.execute();
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Could not release lock of background job {}: {}", jobName, e.getMessage());
+                discard(connection);
+            }
+        }
+    }
+}
@@ -0,0 +1,739 @@
+package tn.esprithub.server.github.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * In-process stand-in for the parts of the GitHub REST API this application calls:
+ * {@code /user}, users, repositories (including creation from templates, collaborators and
+ * branch protection), commits, organizations, teams and team memberships. Point
+ * {@code app.github.api-url} at {@link #url()} to run the github package, load tests
+ * included, without network access.
+ * <p>
+ * Data is synthetic and deterministic: the authenticated user is derived from the token and
+ * everything else from names and {@link GitHubSimulatorSettings#getSeed()}. Responses carry
+ * GitHub's rate-limit headers, with a budget per token, and an ETag; a matching
+ * {@code If-None-Match} is answered with 304 without using budget, as GitHub does. Latency,
+ * hung responses and server errors are injected according to the settings, which can be
+ * swapped while running.
+ */
+@Slf4j
+public class GitHubApiSimulator implements AutoCloseable {
+    
+    private static final Instant DATA_EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String USER_PREFIX = "sim-user-";
+    private static final String ORG_PREFIX = "sim-org-";
+    private static final String REPO_PREFIX = "repo-";
+    private static final String TEAM_PREFIX = "team-";
+    
+    private final int port;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, RateWindow> rateWindows = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> createdRepos = new ConcurrentHashMap<>();
+    // Team memberships changed through the API, by "org/slug" and user id; role "none" marks a removal
+    private final Map<String, Map<Long, String>> teamMemberships = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final SplittableRandom random;
+    private volatile GitHubSimulatorSettings settings;
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile String baseUrl;
+    
+    public GitHubApiSimulator(int port, GitHubSimulatorSettings settings) {
+        this.port = port;
+        this.settings = settings;
+        this.random = new SplittableRandom(settings.getSeed());
+    }
+    
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        // Requests mostly sleep through injected latency, so each gets its own virtual thread
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        baseUrl = url();
+        log.info("GitHub API simulator listening on {}", baseUrl);
+    }
+    
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+    
+    @Override
+    public void close() {
+        stop();
+    }
+    
+    public synchronized String url() {
+        if (server == null) {
+            throw new IllegalStateException("Simulator is not running");
+        }
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    public GitHubSimulatorSettings getSettings() {
+        return settings;
+    }
+    
+    public void reconfigure(GitHubSimulatorSettings settings) {
+        this.settings = settings;
+    }
+    
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+    
+    /**
+     * Forgets rate-limit usage and repositories and team memberships changed through the API.
+     */
+    public void reset() {
+        rateWindows.clear();
+        createdRepos.clear();
+        teamMemberships.clear();
+        requestCount.set(0);
+    }
+    
+    /**
+     * Login the simulator reports for {@code GET /user} with the given token.
+     */
+    public String loginFor(String token) {
+        return USER_PREFIX + userIdFor(token);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestCount.incrementAndGet();
+            GitHubSimulatorSettings current = settings;
+            if (!delay(current)) {
+                return;
+            }
+            
+            String token = token(exchange);
+            if (token == null) {
+                send(exchange, Reply.error(401, "Requires authentication"), null, null);
+                return;
+            }
+            if (token.startsWith(current.getInvalidTokenPrefix())) {
+                send(exchange, Reply.error(401, "Bad credentials"), null, null);
+                return;
+            }
+            if (roll() < current.getErrorRate()) {
+                List<Integer> statuses = current.getErrorStatuses();
+                int status = statuses.get((int) (roll() * statuses.size()));
+                send(exchange, Reply.error(status, "Simulated server error"), null, null);
+                return;
+            }
+            
+            RateWindow window = rateWindows.computeIfAbsent(token, key -> new RateWindow());
+            Reply reply = route(exchange, current, token, window);
+            send(exchange, reply, window, current);
+        } catch (RuntimeException e) {
+            log.warn("GitHub API simulator failed on {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+        }
+    }
+    
+    private Reply route(HttpExchange exchange, GitHubSimulatorSettings current, String token,
+                        RateWindow window) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = segments(exchange.getRequestURI().getRawPath());
+        boolean get = "GET".equals(method) || "HEAD".equals(method);
+        long userId = userIdFor(token);
+        
+        if (get && matches(path, "rate_limit")) {
+            return Reply.of(200, window.resources(current));
+        }
+        if (get && matches(path, "user")) {
+            return Reply.of(200, user(userId, true));
+        }
+        if (matches(path, "user", "repos")) {
+            if ("POST".equals(method)) {
+                return createRepo(readBody(exchange), USER_PREFIX + userId, userId, "User");
+            }
+            return Reply.list(exchange, index -> repo(USER_PREFIX + userId, userId, "User", index),
+                    current.getReposPerUser());
+        }
+        if (get && matches(path, "user", "orgs")) {
+            return Reply.list(exchange, index -> organization(index + 1), current.getOrganizations());
+        }
+        if (get && matches(path, "users", null)) {
+            Long id = parseId(path[1], USER_PREFIX);
+            return id == null ? Reply.notFound() : Reply.of(200, user(id, false));
+        }
+        if (get && matches(path, "users", null, "repos")) {
+            Long id = parseId(path[1], USER_PREFIX);
+            return id == null ? Reply.notFound()
+                    : Reply.list(exchange, index -> repo(path[1], id, "User", index), current.getReposPerUser());
+        }
+        if (get && matches(path, "users", null, "orgs")) {
+            return Reply.list(exchange, index -> organization(index + 1), current.getOrganizations());
+        }
+        if (path.length >= 4 && "organizations".equals(path[0]) && "team".equals(path[2])) {
+            // Team endpoints addressed by ids, as the client lists team members
+            String[] named = teamPath(current, path);
+            return named == null ? Reply.notFound() : routeOrganization(exchange, current, method, named);
+        }
+        if (path.length >= 2 && "orgs".equals(path[0])) {
+            return routeOrganization(exchange, current, method, path);
+        }
+        if (get && matches(path, "repos", null, null)) {
+            Map<String, Object> repo = findRepo(current, path[1], path[2]);
+            return repo == null ? Reply.notFound() : Reply.of(200, repo);
+        }
+        if ("POST".equals(method) && matches(path, "repos", null, null, "generate")) {
+            if (findRepo(current, path[1], path[2]) == null) {
+                return Reply.notFound();
+            }
+            JsonNode body = readBody(exchange);
+            String owner = body.path("owner").asText(USER_PREFIX + userId);
+            boolean organization = owner.startsWith(ORG_PREFIX);
+            return createRepo(body, owner, organization ? id("org", owner) : parseIdOrHash(owner),
+                    organization ? "Organization" : "User");
+        }
+        if ("PUT".equals(method) && matches(path, "repos", null, null, "collaborators", null)) {
+            return findRepo(current, path[1], path[2]) == null ? Reply.notFound() : Reply.of(204, null);
+        }
+        if (get && matches(path, "repos", null, null, "branches", null)) {
+            String fullName = path[1] + "/" + path[2];
+            return findRepo(current, path[1], path[2]) == null ? Reply.notFound() : Reply.of(200, json(
+                    "name", path[4],
+                    "commit", json("sha", HexFormat.of().formatHex(sha256(key("branch", fullName, path[4])), 0, 20)),
+                    "protected", false,
+                    "protection_url", baseUrl + "/repos/" + fullName + "/branches/" + path[4] + "/protection"));
+        }
+        if ("PUT".equals(method) && matches(path, "repos", null, null, "branches", null, "protection")) {
+            String url = baseUrl + "/repos/" + path[1] + "/" + path[2] + "/branches/" + path[4] + "/protection";
+            return findRepo(current, path[1], path[2]) == null ? Reply.notFound() : Reply.of(200, json(
+                    "url", url,
+                    "allow_force_pushes", json("enabled", false),
+                    "allow_deletions", json("enabled", false)));
+        }
+        if (get && matches(path, "repos", null, null, "commits")) {
+            if (findRepo(current, path[1], path[2]) == null) {
+                return Reply.notFound();
+            }
+            String fullName = path[1] + "/" + path[2];
+            return Reply.list(exchange, index -> commit(fullName, index), current.getCommitsPerRepo());
+        }
+        return Reply.notFound();
+    }
+    
+    private Reply routeOrganization(HttpExchange exchange, GitHubSimulatorSettings current, String method,
+                                    String[] path) throws IOException {
+        boolean get = "GET".equals(method) || "HEAD".equals(method);
+        Long orgIndex = parseId(path[1], ORG_PREFIX);
+        if (orgIndex == null || orgIndex < 1 || orgIndex > current.getOrganizations()) {
+            return Reply.notFound();
+        }
+        int org = orgIndex.intValue();
+        String login = path[1];
+        
+        if (get && path.length == 2) {
+            return Reply.of(200, organization(org));
+        }
+        if (matches(path, "orgs", null, "repos")) {
+            if ("POST".equals(method)) {
+                return createRepo(readBody(exchange), login, id("org", login), "Organization");
+            }
+            return Reply.list(exchange, index -> repo(login, id("org", login), "Organization", index),
+                    current.getReposPerUser());
+        }
+        if (get && matches(path, "orgs", null, "members")) {
+            List<Long> members = organizationMembers(current, org);
+            return Reply.list(exchange, index -> user(members.get(index), false), members.size());
+        }
+        if (get && matches(path, "orgs", null, "teams")) {
+            return Reply.list(exchange, index -> team(login, index + 1), current.getTeamsPerOrganization());
+        }
+        Long team = path.length >= 4 && "teams".equals(path[2]) ? parseId(path[3], TEAM_PREFIX) : null;
+        if (team == null || team < 1 || team > current.getTeamsPerOrganization()) {
+            return Reply.notFound();
+        }
+        if (get && path.length == 4) {
+            return Reply.of(200, team(login, team.intValue()));
+        }
+        if (get && matches(path, "orgs", null, "teams", null, "members")) {
+            String role = query(exchange).getOrDefault("role", "all");
+            List<Long> members = teamMembers(current, org, login, team.intValue(), role);
+            return Reply.list(exchange, index -> user(members.get(index), false), members.size());
+        }
+        if (matches(path, "orgs", null, "teams", null, "memberships", null)) {
+            Map<Long, String> changed = teamMemberships.computeIfAbsent(login + "/" + path[3],
+                    key -> new ConcurrentHashMap<>());
+            long member = parseIdOrHash(path[5]);
+            if ("PUT".equals(method)) {
+                String role = readBody(exchange).path("role").asText("member");
+                changed.put(member, role);
+                return Reply.of(200, json("url", baseUrl + "/orgs/" + login + "/teams/" + path[3] + "/memberships/" + path[5],
+                        "role", role,
+                        "state", "active"));
+            }
+            if ("DELETE".equals(method)) {
+                changed.put(member, "none");
+                return Reply.of(204, null);
+            }
+        }
+        return Reply.notFound();
+    }
+    
+    // Rewrites /organizations/{org id}/team/{team id}/... to /orgs/{org}/teams/{slug}/...
+    private String[] teamPath(GitHubSimulatorSettings current, String[] path) {
+        for (int org = 1; org <= current.getOrganizations(); org++) {
+            String login = ORG_PREFIX + org;
+            if (!path[1].equals(String.valueOf(id("org", login)))) {
+                continue;
+            }
+            for (int team = 1; team <= current.getTeamsPerOrganization(); team++) {
+                String slug = TEAM_PREFIX + team;
+                if (path[3].equals(String.valueOf(id("team", login, slug)))) {
+                    String[] named = path.clone();
+                    named[0] = "orgs";
+                    named[1] = login;
+                    named[2] = "teams";
+                    named[3] = slug;
+                    return named;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            JsonNode body = objectMapper.readTree(in);
+            return body != null ? body : objectMapper.createObjectNode();
+        }
+    }
+    
+    private Reply createRepo(JsonNode body, String owner, long ownerId, String ownerType) {
+        String name = body.path("name").asText("");
+        if (name.isBlank()) {
+            return Reply.error(422, "Repository creation failed: name is missing");
+        }
+        
+        Map<String, Object> repo = repoJson(owner, ownerId, ownerType, name, Instant.now());
+        repo.put("private", body.path("private").asBoolean(false));
+        repo.put("description", body.path("description").asText(null));
+        if (createdRepos.putIfAbsent(owner + "/" + name, repo) != null) {
+            return Reply.error(422, "Repository creation failed: name already exists on this account");
+        }
+        return Reply.of(201, repo);
+    }
+    
+    private Map<String, Object> findRepo(GitHubSimulatorSettings current, String owner, String name) {
+        Map<String, Object> created = createdRepos.get(owner + "/" + name);
+        if (created != null) {
+            return created;
+        }
+        Long index = parseId(name, REPO_PREFIX);
+        if (index == null || index < 1 || index > current.getReposPerUser()) {
+            return null;
+        }
+        boolean organization = owner.startsWith(ORG_PREFIX);
+        long ownerId = organization ? id("org", owner) : parseIdOrHash(owner);
+        return repo(owner, ownerId, organization ? "Organization" : "User", index.intValue() - 1);
+    }
+    
+    
+    private void send(HttpExchange exchange, Reply reply, RateWindow window, GitHubSimulatorSettings current)
+            throws IOException {
+        byte[] body = reply.body() == null ? new byte[0] : objectMapper.writeValueAsBytes(reply.body());
+        var headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        headers.set("X-GitHub-Request-Id", UUID.randomUUID().toString());
+        reply.headers().forEach(headers::set);
+        
+        int status = reply.status();
+        if (window != null) {
+            String etag = "\"" + HexFormat.of().formatHex(sha256(body), 0, 16) + "\"";
+            boolean cacheable = status == 200 && "GET".equals(exchange.getRequestMethod());
+            if (cacheable && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                status = 304;
+                body = new byte[0];
+            } else if (!window.consume(current)) {
+                status = 403;
+                body = objectMapper.writeValueAsBytes(Map.of(
+                        "message", "API rate limit exceeded",
+                        "documentation_url", "https://docs.github.com/rest/overview/resources-in-the-rest-api#rate-limiting"));
+            }
+            if (cacheable) {
+                headers.set("ETag", etag);
+            }
+            window.headers(current).forEach(headers::set);
+        }
+        
+        boolean noBody = body.length == 0 || "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(status, noBody ? -1 : body.length);
+        if (!noBody) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+    
+    private boolean delay(GitHubSimulatorSettings current) {
+        Duration latency = current.getLatency().sample(random());
+        if (roll() < current.getHangRate()) {
+            latency = latency.plus(current.getHangDuration());
+        }
+        if (latency.isZero() || latency.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(latency);
+            return true;
+        } catch (InterruptedException e) {
+            // The simulator is stopping
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    
+    private Map<String, Object> user(long id, boolean self) {
+        String login = USER_PREFIX + id;
+        Map<String, Object> user = json(
+                "login", login,
+                "id", id,
+                "node_id", "U_" + id,
+                "avatar_url", "https://avatars.githubusercontent.com/u/" + id,
+                "url", baseUrl + "/users/" + login,
+                "html_url", "https://github.com/" + login,
+                "type", "User",
+                "site_admin", false);
+        if (self) {
+            user.put("name", "Simulated User " + id);
+            user.put("email", login + "@users.noreply.github.com");
+            user.put("public_repos", settings.getReposPerUser());
+            user.put("created_at", DATA_EPOCH.minus(Duration.ofDays(id % 1000)).toString());
+            user.put("updated_at", DATA_EPOCH.toString());
+        }
+        return user;
+    }
+    
+    private Map<String, Object> organization(int index) {
+        String login = ORG_PREFIX + index;
+        return json(
+                "login", login,
+                "id", id("org", login),
+                "url", baseUrl + "/orgs/" + login,
+                "html_url", "https://github.com/" + login,
+                "name", "Simulated Organization " + index,
+                "type", "Organization");
+    }
+    
+    private Map<String, Object> team(String org, int index) {
+        String slug = TEAM_PREFIX + index;
+        return json(
+                "id", id("team", org, slug),
+                "name", "Team " + index,
+                "slug", slug,
+                "privacy", "closed",
+                "permission", "pull",
+                "url", baseUrl + "/orgs/" + org + "/teams/" + slug,
+                "members_count", settings.getMembersPerTeam());
+    }
+    
+    private Map<String, Object> repo(String owner, long ownerId, String ownerType, int index) {
+        String name = REPO_PREFIX + (index + 1);
+        Instant pushedAt = DATA_EPOCH.minus(Duration.ofHours(id("pushed", owner, name) % 8760));
+        return repoJson(owner, ownerId, ownerType, name, pushedAt);
+    }
+    
+    private Map<String, Object> repoJson(String owner, long ownerId, String ownerType, String name, Instant pushedAt) {
+        String fullName = owner + "/" + name;
+        return json(
+                "id", id("repo", fullName),
+                "node_id", "R_" + id("repo", fullName),
+                "name", name,
+                "full_name", fullName,
+                "owner", json("login", owner, "id", ownerId, "type", ownerType),
+                "private", false,
+                "description", null,
+                "fork", false,
+                "url", baseUrl + "/repos/" + fullName,
+                "html_url", "https://github.com/" + fullName,
+                "clone_url", "https://github.com/" + fullName + ".git",
+                "default_branch", "main",
+                "size", id("size", fullName) % 50_000,
+                "stargazers_count", id("stars", fullName) % 100,
+                "archived", false,
+                "created_at", pushedAt.minus(Duration.ofDays(30)).toString(),
+                "updated_at", pushedAt.toString(),
+                "pushed_at", pushedAt.toString());
+    }
+    
+    private Map<String, Object> commit(String fullName, int index) {
+        String sha = HexFormat.of().formatHex(sha256(key("commit", fullName, String.valueOf(index))), 0, 20);
+        String date = DATA_EPOCH.minus(Duration.ofHours(index)).toString();
+        Map<String, Object> signature = json("name", "Simulated Author", "email", "author@example.com", "date", date);
+        return json(
+                "sha", sha,
+                "url", baseUrl + "/repos/" + fullName + "/commits/" + sha,
+                "html_url", "https://github.com/" + fullName + "/commit/" + sha,
+                "commit", json(
+                        "message", "Commit " + (index + 1),
+                        "author", signature,
+                        "committer", signature),
+                "parents", List.of());
+    }
+    
+    private List<Long> teamMembers(GitHubSimulatorSettings current, int org, int team) {
+        // Teams of an organization draw from a shared pool, so memberships overlap
+        long pool = (long) current.getMembersPerTeam() * current.getTeamsPerOrganization() / 2 + 1;
+        List<Long> members = new ArrayList<>(current.getMembersPerTeam());
+        for (int i = 0; i < current.getMembersPerTeam(); i++) {
+            long member = id("member", String.valueOf(org), String.valueOf(team), String.valueOf(i)) % pool;
+            members.add(1_000_000L * org + member + 1);
+        }
+        return members.stream().distinct().sorted().toList();
+    }
+    
+    // Synthetic members are plain members until a membership is changed through the API
+    private List<Long> teamMembers(GitHubSimulatorSettings current, int org, String orgLogin, int team, String role) {
+        Map<Long, String> roles = new TreeMap<>();
+        teamMembers(current, org, team).forEach(member -> roles.put(member, "member"));
+        roles.putAll(teamMemberships.getOrDefault(orgLogin + "/" + TEAM_PREFIX + team, Map.of()));
+        return roles.entrySet().stream()
+                .filter(entry -> "all".equals(role) ? !"none".equals(entry.getValue()) : role.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+    
+    private List<Long> organizationMembers(GitHubSimulatorSettings current, int org) {
+        List<Long> members = new ArrayList<>();
+        for (int team = 1; team <= current.getTeamsPerOrganization(); team++) {
+            members.addAll(teamMembers(current, org, team));
+        }
+        return members.stream().distinct().sorted().toList();
+    }
+    
+    private long userIdFor(String token) {
+        return 1 + id("user", token) % 100_000_000;
+    }
+    
+    private long parseIdOrHash(String login) {
+        Long id = parseId(login, USER_PREFIX);
+        return id != null ? id : id("user-login", login);
+    }
+    
+    
+    private long id(String... parts) {
+        return ByteBuffer.wrap(sha256(key(parts))).getLong() & Long.MAX_VALUE;
+    }
+    
+    private byte[] key(String... parts) {
+        return (settings.getSeed() + ":" + String.join(":", parts)).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private synchronized double roll() {
+        return random.nextDouble();
+    }
+    
+    private synchronized SplittableRandom random() {
+        return random.split();
+    }
+    
+    private static Long parseId(String value, String prefix) {
+        if (value == null || !value.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private static String token(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null) {
+            return null;
+        }
+        int space = authorization.indexOf(' ');
+        return space < 0 ? null : authorization.substring(space + 1).trim();
+    }
+    
+    private static String[] segments(String path) {
+        return Arrays.stream(path.split("/"))
+                .filter(segment -> !segment.isEmpty())
+                .map(segment -> URLDecoder.decode(segment, StandardCharsets.UTF_8))
+                .toArray(String[]::new);
+    }
+    
+    // null matches any single segment
+    private static boolean matches(String[] path, String... pattern) {
+        if (path.length != pattern.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (pattern[i] != null && !pattern[i].equals(path[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static Map<String, Object> json(Object... keysAndValues) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            json.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return json;
+    }
+    
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+    
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new LinkedHashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+    
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        try {
+            return query.containsKey(name) ? Integer.parseInt(query.get(name)) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    private record Reply(int status, Object body, Map<String, String> headers) {
+        
+        static Reply of(int status, Object body) {
+            return new Reply(status, body, Map.of());
+        }
+        
+        static Reply error(int status, String message) {
+            return of(status, Map.of("message", message));
+        }
+        
+        static Reply notFound() {
+            return error(404, "Not Found");
+        }
+        
+        // One page of a list, with GitHub's Link header for the next and last pages
+        static Reply list(HttpExchange exchange, IntFunction<Object> item, int total) {
+            Map<String, String> query = query(exchange);
+            int perPage = Math.min(MAX_PAGE_SIZE, Math.max(1, intParam(query, "per_page", DEFAULT_PAGE_SIZE)));
+            int page = Math.max(1, intParam(query, "page", 1));
+            int lastPage = Math.max(1, (total + perPage - 1) / perPage);
+            
+            List<Object> items = new ArrayList<>();
+            for (int index = (page - 1) * perPage; index < Math.min(total, page * perPage); index++) {
+                items.add(item.apply(index));
+            }
+            if (page >= lastPage) {
+                return new Reply(200, items, Map.of());
+            }
+            
+            StringBuilder base = new StringBuilder("http://").append(exchange.getRequestHeaders().getFirst("Host"))
+                    .append(exchange.getRequestURI().getRawPath()).append("?");
+            query.forEach((key, value) -> {
+                if (!"per_page".equals(key) && !"page".equals(key)) {
+                    base.append(key).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8)).append('&');
+                }
+            });
+            base.append("per_page=").append(perPage).append("&page=");
+            String link = "<" + base + (page + 1) + ">; rel=\"next\", <" + base + lastPage + ">; rel=\"last\"";
+            return new Reply(200, items, Map.of("Link", link));
+        }
+    }
+    
+    private static final class RateWindow {
+        
+        private long resetAtSeconds;
+        private int used;
+        
+        synchronized boolean consume(GitHubSimulatorSettings current) {
+            roll(current);
+            if (used >= current.getRateLimit()) {
+                return false;
+            }
+            used++;
+            return true;
+        }
+        
+        synchronized Map<String, String> headers(GitHubSimulatorSettings current) {
+            roll(current);
+            return Map.of(
+                    "X-RateLimit-Limit", String.valueOf(current.getRateLimit()),
+                    "X-RateLimit-Remaining", String.valueOf(Math.max(0, current.getRateLimit() - used)),
+                    "X-RateLimit-Used", String.valueOf(used),
+                    "X-RateLimit-Reset", String.valueOf(resetAtSeconds),
+                    "X-RateLimit-Resource", "core");
+        }
+        
+        synchronized Map<String, Object> resources(GitHubSimulatorSettings current) {
+            roll(current);
+            Map<String, Object> core = json(
+                    "limit", current.getRateLimit(),
+                    "remaining", Math.max(0, current.getRateLimit() - used),
+                    "reset", resetAtSeconds,
+                    "used", used);
+            return json("resources", json("core", core), "rate", core);
+        }
+        
+        private void roll(GitHubSimulatorSettings current) {
+            long now = Instant.now().getEpochSecond();
+            if (now >= resetAtSeconds) {
+                resetAtSeconds = now + Math.max(1, current.getRateLimitWindow().toSeconds());
+                used = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tn.esprithub.server.github.simulator;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Behaviour of a {@link GitHubApiSimulator}. Defaults give an instant, error-free API with
+ * GitHub's authenticated rate limit; the synthetic data set is derived from {@code seed}
+ * and the token, so the same settings always serve the same users, repos and commits.
+ */
+@Value
+@Builder(toBuilder = true)
+public class GitHubSimulatorSettings {
+    
+    @Builder.Default
+    LatencyDistribution latency = LatencyDistribution.none();
+    
+    // Share of requests answered with one of errorStatuses instead of the resource
+    @Builder.Default
+    double errorRate = 0.0;
+    
+    @Builder.Default
+    List<Integer> errorStatuses = List.of(500, 502, 503);
+    
+    // Share of requests held for hangDuration before answering, to exercise client deadlines
+    @Builder.Default
+    double hangRate = 0.0;
+    
+    @Builder.Default
+    Duration hangDuration = Duration.ofSeconds(30);
+    
+    @Builder.Default
+    int rateLimit = 5000;
+    
+    @Builder.Default
+    Duration rateLimitWindow = Duration.ofHours(1);
+    
+    // Tokens starting with this prefix are answered with 401 Bad credentials
+    @Builder.Default
+    String invalidTokenPrefix = "invalid";
+    
+    @Builder.Default
+    int reposPerUser = 30;
+    
+    @Builder.Default
+    int commitsPerRepo = 100;
+    
+    @Builder.Default
+    int organizations = 3;
+    
+    @Builder.Default
+    int teamsPerOrganization = 5;
+    
+    @Builder.Default
+    int membersPerTeam = 20;
+    
+    @Builder.Default
+    long seed = 42;
+}
@@ -0,0 +1,83 @@
+package tn.esprithub.server.github.simulator;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Response delay added by {@link GitHubApiSimulator}. Parsed from a compact spec so it can be
+ * set from configuration:
+ * <ul>
+ *   <li>{@code none}</li>
+ *   <li>{@code fixed:40ms}</li>
+ *   <li>{@code uniform:20ms-120ms}</li>
+ *   <li>{@code lognormal:60ms-800ms}, median and p99 of a log-normal distribution, which
+ *   is close to what api.github.com shows: a tight body and a long tail</li>
+ * </ul>
+ */
+public interface LatencyDistribution {
+    
+    // Standard normal quantile of the 99th percentile
+    double Z_99 = 2.326;
+    
+    Duration sample(RandomGenerator random);
+    
+    static LatencyDistribution none() {
+        return random -> Duration.ZERO;
+    }
+    
+    static LatencyDistribution fixed(Duration latency) {
+        return random -> latency;
+    }
+    
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long maxNanos = max.toNanos();
+        if (maxNanos < minNanos) {
+            throw new IllegalArgumentException("Uniform latency needs min <= max");
+        }
+        return random -> Duration.ofNanos(minNanos == maxNanos ? minNanos : random.nextLong(minNanos, maxNanos + 1));
+    }
+    
+    static LatencyDistribution logNormal(Duration median, Duration p99) {
+        if (median.isZero() || median.isNegative() || p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("Log-normal latency needs 0 < median <= p99");
+        }
+        double mu = Math.log(median.toNanos());
+        double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+        return random -> Duration.ofNanos((long) Math.exp(mu + sigma * random.nextGaussian()));
+    }
+    
+    static LatencyDistribution parse(String spec) {
+        String trimmed = spec == null ? "" : spec.trim();
+        if (trimmed.isEmpty() || "none".equalsIgnoreCase(trimmed)) {
+            return none();
+        }
+        
+        int colon = trimmed.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Invalid latency spec: " + spec);
+        }
+        String kind = trimmed.substring(0, colon).toLowerCase(Locale.ROOT);
+        String[] bounds = trimmed.substring(colon + 1).split("-", 2);
+        return switch (kind) {
+            case "fixed" -> fixed(duration(bounds[0]));
+            case "uniform" -> uniform(duration(bounds[0]), duration(secondBound(bounds, spec)));
+            case "lognormal" -> logNormal(duration(bounds[0]), duration(secondBound(bounds, spec)));
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + kind);
+        };
+    }
+    
+    private static String secondBound(String[] bounds, String spec) {
+        if (bounds.length < 2) {
+            throw new IllegalArgumentException("Latency spec needs two durations: " + spec);
+        }
+        return bounds[1];
+    }
+    
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value.trim());
+    }
+}
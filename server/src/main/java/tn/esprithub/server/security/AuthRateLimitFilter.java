@@ -0,0 +1,54 @@
+package tn.esprithub.server.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tn.esprithub.server.common.dto.ApiResponse;
+
+import java.io.IOException;
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+    
+    private static final Set<String> LIMITED_PATHS = Set.of("/auth/login", "/auth/refresh");
+    
+    private final AuthRateLimiter authRateLimiter;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !LIMITED_PATHS.contains(request.getServletPath());
+    }
+    
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        // The client address behind a trusted proxy, see server.forward-headers-strategy
+        long retryAfterSeconds = authRateLimiter.checkIp(request.getRemoteAddr());
+        if (retryAfterSeconds > 0) {
+            log.warn("Rate limited {} from {}", request.getServletPath(), request.getRemoteAddr());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("Too many requests, please retry later"));
+            return;
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,80 @@
+package tn.esprithub.server.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprithub.server.common.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-IP and per-account limits for the unauthenticated auth endpoints. Both are checked before
+ * any password hashing or token verification so abusive traffic is turned away cheaply.
+ */
+@Component
+public class AuthRateLimiter {
+    
+    private final boolean enabled;
+    private final TokenBucketRateLimiter perIp;
+    private final TokenBucketRateLimiter perAccount;
+    private final Counter ipRejections;
+    private final Counter accountRejections;
+    
+    public AuthRateLimiter(@Value("${app.rate-limit.auth.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.auth.per-ip.capacity:100}") int perIpCapacity,
+                           @Value("${app.rate-limit.auth.per-ip.refill-period:PT1M}") Duration perIpRefillPeriod,
+                           @Value("${app.rate-limit.auth.per-account.capacity:5}") int perAccountCapacity,
+                           @Value("${app.rate-limit.auth.per-account.refill-period:PT1M}") Duration perAccountRefillPeriod,
+                           @Value("${app.rate-limit.auth.max-keys:100000}") int maxKeys,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.perIp = new TokenBucketRateLimiter(perIpCapacity, perIpRefillPeriod, maxKeys);
+        this.perAccount = new TokenBucketRateLimiter(perAccountCapacity, perAccountRefillPeriod, maxKeys);
+        this.ipRejections = Counter.builder("auth.rate-limit.rejected").tag("scope", "ip").register(meterRegistry);
+        this.accountRejections = Counter.builder("auth.rate-limit.rejected").tag("scope", "account").register(meterRegistry);
+        Gauge.builder("auth.rate-limit.buckets", perIp, TokenBucketRateLimiter::size).tag("scope", "ip").register(meterRegistry);
+        Gauge.builder("auth.rate-limit.buckets", perAccount, TokenBucketRateLimiter::size).tag("scope", "account").register(meterRegistry);
+    }
+    
+    /**
+     * @return 0 when allowed, otherwise the number of seconds the client should wait
+     */
+    public long checkIp(String ip) {
+        if (!enabled) {
+            return 0;
+        }
+        long waitNanos = perIp.tryAcquire(ip);
+        if (waitNanos == 0) {
+            return 0;
+        }
+        ipRejections.increment();
+        return toRetryAfterSeconds(waitNanos);
+    }
+    
+    public void checkAccount(String email) {
+        if (!enabled) {
+            return;
+        }
+        long waitNanos = perAccount.tryAcquire(email.toLowerCase(Locale.ROOT));
+        if (waitNanos > 0) {
+            accountRejections.increment();
+            throw new TooManyRequestsException("Too many login attempts for this account, please retry later",
+                    toRetryAfterSeconds(waitNanos));
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.rate-limit.auth.eviction-interval:PT1M}")
+    public void evictIdleBuckets() {
+        perIp.evictIdle();
+        perAccount.evictIdle();
+    }
+    
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+}
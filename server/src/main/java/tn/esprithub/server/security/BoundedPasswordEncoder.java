@@ -0,0 +1,117 @@
+package tn.esprithub.server.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tn.esprithub.server.common.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs password hashing on a dedicated pool sized to the CPU count so that a login storm
+ * cannot occupy every request thread with BCrypt work. The queue is bounded; when it is
+ * full, or a caller has waited longer than {@code maxWait}, the call fails fast with
+ * {@link ServiceUnavailableException} instead of piling up.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+    private final long retryAfterSeconds;
+    private final Timer waitTimer;
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Counter rejectedCounter;
+    
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  Duration maxWait, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWait = maxWait;
+        this.retryAfterSeconds = Math.max(1, maxWait.toSeconds());
+        
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashing calls waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing calls currently running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.password.wait")
+                .description("Time a password hashing call spent queued")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.password.hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.rejected")
+                .description("Password hashing calls refused because the pool was saturated")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    private <T> T submit(Timer hashTimer, Callable<T> work) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(work);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Too many concurrent logins, please retry shortly", retryAfterSeconds);
+        }
+        
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException("Too many concurrent logins, please retry shortly", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
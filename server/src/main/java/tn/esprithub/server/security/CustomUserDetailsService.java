@@ -1,31 +1,101 @@
 package tn.esprithub.server.security;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import tn.esprithub.server.user.entity.User;
 import tn.esprithub.server.user.repository.UserRepository;
 
+import java.time.Duration;
+
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
     
     private final UserRepository userRepository;
+    private final boolean cacheEnabled;
+    private final Cache<Long, UserPrincipal> principalsById;
+    private final Cache<String, UserPrincipal> principalsByEmail;
+    
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${app.security.principal-cache.enabled:true}") boolean cacheEnabled,
+                                    @Value("${app.security.principal-cache.maximum-size:10000}") long maximumSize,
+                                    @Value("${app.security.principal-cache.ttl:PT5M}") Duration ttl,
+                                    MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cacheEnabled = cacheEnabled;
+        this.principalsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.principalsByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principalsById, "security.principals.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, principalsByEmail, "security.principals.by-email");
+    }
     
+    // Repository calls run in their own read-only transaction; opening one here as well
+    // would take a connection from the pool even when the principal is served from cache
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        if (!cacheEnabled) {
+            return loadPrincipalByEmail(email);
+        }
+        return principalsByEmail.get(email, this::loadPrincipalByEmail);
+    }
+    
+    public UserDetails loadUserById(Long id) {
+        if (!cacheEnabled) {
+            return loadPrincipalById(id);
+        }
+        return principalsById.get(id, this::loadPrincipalById);
+    }
+    
+    /**
+     * Drops the cached principal of a user whose role, enabled flag or credentials changed.
+     * When called inside a transaction the entry is evicted again after commit, so a request
+     * that reloaded the old row before the commit cannot leave a stale principal behind.
+     */
+    public void evict(Long id, String email) {
+        evictNow(id, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(id, email);
+                }
+            });
+        }
+    }
+    
+    private void evictNow(Long id, String email) {
+        if (id != null) {
+            principalsById.invalidate(id);
+        }
+        if (email != null) {
+            principalsByEmail.invalidate(email);
+        }
+    }
+    
+    private UserPrincipal loadPrincipalByEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
         
         return UserPrincipal.create(user);
     }
     
-    @Transactional
-    public UserDetails loadUserById(Long id) {
+    private UserPrincipal loadPrincipalById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
         
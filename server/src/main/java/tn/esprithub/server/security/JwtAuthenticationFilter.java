@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,6 +15,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import tn.esprithub.server.auth.dto.JwtClaims;
 import tn.esprithub.server.auth.service.IJwtService;
 
 import java.io.IOException;
@@ -26,6 +28,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final IJwtService jwtService;
     private final CustomUserDetailsService customUserDetailsService;
     
+    @Value("${app.jwt.stateless-principal.enabled:false}")
+    private boolean statelessPrincipal;
+    
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                   @NonNull HttpServletResponse response,
@@ -33,18 +38,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && jwtService.validateToken(jwt)) {
-                Long userId = jwtService.getUserIdFromToken(jwt);
-                
-                UserDetails userDetails = customUserDetailsService.loadUserById(userId);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            // Refresh tokens are only accepted by /auth/refresh, never as bearer credentials
+            JwtClaims claims = StringUtils.hasText(jwt)
+                    ? jwtService.verifyToken(jwt).filter(verified -> !verified.isRefresh()).orElse(null)
+                    : null;
+            
+            if (claims != null) {
+                UserDetails userDetails = statelessPrincipal && claims.getRole() != null
+                        ? UserPrincipal.fromClaims(claims)
+                        : customUserDetailsService.loadUserById(claims.getUserId());
                 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (userDetails.isEnabled()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                } else {
+                    log.warn("Rejected token for disabled user {}", claims.getUserId());
+                }
             }
         } catch (Exception ex) {
-            log.error("Could not set user authentication in security context", ex);
+            // Token problems are reported by the JWT service; this only covers principal lookup
+            log.error("Could not set user authentication in security context: {}", ex.getMessage());
+            log.debug("Authentication failure details", ex);
         }
         
         filterChain.doFilter(request, response);
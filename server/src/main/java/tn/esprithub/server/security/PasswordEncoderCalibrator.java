@@ -0,0 +1,116 @@
+package tn.esprithub.server.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Builds the application's {@link DelegatingPasswordEncoder} with work factors measured on
+ * the current machine. BCrypt strength and Argon2 iterations are raised one step at a time
+ * until a single hash would exceed the latency budget; the last setting that fits (but never
+ * less than the configured floor) is used for new hashes. Because the delegating encoder
+ * reports older or weaker hashes as needing an upgrade, stored hashes are re-encoded on the
+ * next successful login and follow the hardware over time.
+ */
+@Slf4j
+public final class PasswordEncoderCalibrator {
+    
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+    private static final int MAX_ARGON2_ITERATIONS = 16;
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int SAMPLES = 3;
+    private static final String SAMPLE_PASSWORD = "calibration-Passw0rd!";
+    
+    private PasswordEncoderCalibrator() {
+    }
+    
+    public static PasswordEncoder calibrate(String idForEncode, Duration targetLatency,
+                                            int minBcryptStrength, int minArgon2Iterations, int argon2MemoryKib) {
+        int bcryptStrength = calibrateBcrypt(targetLatency, minBcryptStrength);
+        int argon2Iterations = ARGON2.equals(idForEncode)
+                ? calibrateArgon2(targetLatency, minArgon2Iterations, argon2MemoryKib)
+                : minArgon2Iterations;
+        
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcrypt,
+                ARGON2, argon2(argon2Iterations, argon2MemoryKib)
+        );
+        
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        // Hashes created before the delegating encoder have no {id} prefix and are plain BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+    
+    private static int calibrateBcrypt(Duration targetLatency, int minStrength) {
+        int fitting = 0;
+        for (int strength = 4; strength <= MAX_BCRYPT_STRENGTH; strength++) {
+            long nanos = measure(new BCryptPasswordEncoder(strength));
+            report(BCRYPT, "strength=" + strength, nanos);
+            if (nanos > targetLatency.toNanos()) {
+                break;
+            }
+            fitting = strength;
+        }
+        if (fitting < minStrength) {
+            log.warn("BCrypt strength {} exceeds the {} ms hashing budget on this machine, keeping it as the floor",
+                    minStrength, targetLatency.toMillis());
+        }
+        int chosen = Math.max(fitting, minStrength);
+        log.info("Using BCrypt strength {} for a {} ms hashing budget", chosen, targetLatency.toMillis());
+        return chosen;
+    }
+    
+    private static int calibrateArgon2(Duration targetLatency, int minIterations, int memoryKib) {
+        int fitting = 0;
+        for (int iterations = 1; iterations <= MAX_ARGON2_ITERATIONS; iterations++) {
+            long nanos = measure(argon2(iterations, memoryKib));
+            report(ARGON2, "iterations=" + iterations + ", memory=" + memoryKib + "KiB", nanos);
+            if (nanos > targetLatency.toNanos()) {
+                break;
+            }
+            fitting = iterations;
+        }
+        int chosen = Math.max(fitting, minIterations);
+        log.info("Using Argon2 with {} iterations and {} KiB for a {} ms hashing budget",
+                chosen, memoryKib, targetLatency.toMillis());
+        return chosen;
+    }
+    
+    private static Argon2PasswordEncoder argon2(int iterations, int memoryKib) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM,
+                memoryKib, iterations);
+    }
+    
+    // Median of a few single-threaded runs after one warm-up, i.e. the cost on one core
+    private static long measure(PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+    
+    private static void report(String algorithm, String setting, long nanos) {
+        double millis = nanos / 1_000_000.0;
+        double hashesPerSecondPerCore = 1_000_000_000.0 / nanos;
+        log.info("Password hash calibration: {} {} -> {} ms/hash, {} hashes/s/core",
+                algorithm, setting, String.format("%.2f", millis), String.format("%.1f", hashesPerSecondPerCore));
+    }
+}
@@ -0,0 +1,76 @@
+package tn.esprithub.server.security;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed token bucket implemented as GCRA: each bucket is a single {@code AtomicLong} holding the
+ * theoretical arrival time of the next request, updated with one CAS and no locks. Buckets live
+ * in a {@link ConcurrentHashMap}, whose striped bins keep contention per key. Memory is bounded
+ * by {@code maxKeys}; idle buckets are swept by {@link #evictIdle()}, and when the table is still
+ * full every new key is charged to one shared overflow bucket instead of growing the map.
+ */
+public class TokenBucketRateLimiter {
+    
+    private static final String OVERFLOW_KEY = "\u0000overflow";
+    
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    
+    public TokenBucketRateLimiter(int capacity, Duration refillPeriod, int maxKeys) {
+        // One token is added every refillPeriod / capacity, up to capacity tokens
+        this.emissionIntervalNanos = refillPeriod.toNanos() / capacity;
+        this.burstNanos = emissionIntervalNanos * capacity;
+        this.maxKeys = maxKeys;
+    }
+    
+    /**
+     * Takes one token for {@code key}.
+     *
+     * @return 0 when the request is allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong bucket = bucketFor(key);
+        long now = System.nanoTime();
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            long next = Math.max(theoreticalArrival, now) + emissionIntervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return 0;
+            }
+        }
+    }
+    
+    /**
+     * Removes buckets that have refilled completely, since they behave exactly like a new bucket.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+    
+    public int size() {
+        return buckets.size();
+    }
+    
+    private AtomicLong bucketFor(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            evictIdle();
+            if (buckets.size() >= maxKeys) {
+                key = OVERFLOW_KEY;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime() - burstNanos));
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import tn.esprithub.server.auth.dto.JwtClaims;
 import tn.esprithub.server.user.entity.User;
 
 import java.util.Collection;
@@ -32,6 +33,18 @@ public class UserPrincipal implements UserDetails {
         );
     }
     
+    public static UserPrincipal fromClaims(JwtClaims claims) {
+        GrantedAuthority authority = new SimpleGrantedAuthority(claims.getRole().getAuthority());
+        
+        return new UserPrincipal(
+                claims.getUserId(),
+                claims.getEmail(),
+                null,
+                Collections.singletonList(authority),
+                Boolean.TRUE.equals(claims.getEnabled())
+        );
+    }
+    
     @Override
     public String getUsername() {
         return email;
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "users", 
-       uniqueConstraints = @UniqueConstraint(columnNames = "email"))
+       uniqueConstraints = @UniqueConstraint(columnNames = "email"),
+       indexes = @Index(name = "idx_users_github_id", columnList = "githubId"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -51,6 +52,8 @@ public class User {
     
     private String githubUsername;
     
+    private Long githubId;
+    
     private String profilePicture;
     
     @Builder.Default
@@ -25,7 +25,7 @@ public interface IUserService {
     
     void deleteUser(Long id);
     
-    UserDto updateGithubToken(String email, String githubToken, String githubUsername);
+    UserDto updateGithubToken(String email, String githubToken, String githubUsername, Long githubId);
     
     boolean hasGithubToken(String email);
 }
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tn.esprithub.server.common.enums.AuthProvider;
 import tn.esprithub.server.common.enums.UserRole;
+import tn.esprithub.server.security.CustomUserDetailsService;
 import tn.esprithub.server.user.dto.CreateUserRequest;
 import tn.esprithub.server.user.dto.UpdateUserRequest;
 import tn.esprithub.server.user.dto.UserDto;
@@ -26,6 +27,7 @@ public class UserServiceImpl implements IUserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
     
     @Transactional(readOnly = true)
     public Page<UserDto> getAllUsers(Pageable pageable) {
@@ -95,6 +97,7 @@ public class UserServiceImpl implements IUserService {
         }
         
         User savedUser = userRepository.save(user);
+        userDetailsService.evict(savedUser.getId(), savedUser.getEmail());
         log.info("Updated user with id: {}", savedUser.getId());
         
         return userMapper.toDto(savedUser);
@@ -102,23 +105,25 @@ public class UserServiceImpl implements IUserService {
     
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new IllegalArgumentException("User not found with id: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + id));
         
-        userRepository.deleteById(id);
+        userRepository.delete(user);
+        userDetailsService.evict(id, user.getEmail());
         log.info("Deleted user with id: {}", id);
     }
     
     @Transactional
-    public UserDto updateGithubToken(String email, String githubToken, String githubUsername) {
+    public UserDto updateGithubToken(String email, String githubToken, String githubUsername, Long githubId) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with email: " + email));
         
         user.setGithubToken(githubToken);
         user.setGithubUsername(githubUsername);
+        user.setGithubId(githubId);
         
         User savedUser = userRepository.save(user);
+        userDetailsService.evict(savedUser.getId(), savedUser.getEmail());
         log.info("Updated GitHub token for user: {}", savedUser.getEmail());
         
         return userMapper.toDto(savedUser);
@@ -0,0 +1,66 @@
+package tn.esprithub.server.auth.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import tn.esprithub.server.auth.entity.RefreshToken;
+import tn.esprithub.server.auth.repository.RefreshTokenRotation.RotatedToken;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the rotation SQL against PostgreSQL, since {@code UPDATE ... RETURNING} has no H2
+ * equivalent. Enabled when {@code DB_HOST} points at a database, as for the application itself.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "DB_HOST", matches = ".+")
+class RefreshTokenRepositoryTest {
+    
+    private static final UUID FAMILY = UUID.randomUUID();
+    
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    
+    @Test
+    void rotatesALiveTokenExactlyOnce() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        save("live", now.plusSeconds(3600));
+        
+        assertThat(refreshTokenRepository.rotate(hash("live"), now)).contains(new RotatedToken(FAMILY, 1L));
+        // A replay of the same token finds it used and returns nothing
+        assertThat(refreshTokenRepository.rotate(hash("live"), now)).isEmpty();
+        assertThat(refreshTokenRepository.findByTokenHash(hash("live")))
+                .hasValueSatisfying(token -> assertThat(token.getUsedAt()).isNotNull());
+    }
+    
+    @Test
+    void doesNotRotateExpiredOrRevokedTokens() {
+        Instant now = Instant.now();
+        save("expired", now.minusSeconds(1));
+        save("revoked", now.plusSeconds(3600));
+        refreshTokenRepository.revokeFamily(FAMILY);
+        
+        assertThat(refreshTokenRepository.rotate(hash("expired"), now)).isEmpty();
+        assertThat(refreshTokenRepository.rotate(hash("revoked"), now)).isEmpty();
+    }
+    
+    private void save(String name, Instant expiresAt) {
+        refreshTokenRepository.saveAndFlush(RefreshToken.builder()
+                .tokenHash(hash(name))
+                .familyId(FAMILY)
+                .userId(1L)
+                .expiresAt(expiresAt)
+                .build());
+    }
+    
+    private static String hash(String name) {
+        return String.format("%64s", name).replace(' ', '0');
+    }
+}
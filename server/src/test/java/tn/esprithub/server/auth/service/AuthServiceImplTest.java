@@ -0,0 +1,170 @@
+package tn.esprithub.server.auth.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tn.esprithub.server.auth.dto.AuthResponse;
+import tn.esprithub.server.auth.dto.JwtClaims;
+import tn.esprithub.server.auth.dto.LoginRequest;
+import tn.esprithub.server.common.enums.AuthProvider;
+import tn.esprithub.server.common.enums.UserRole;
+import tn.esprithub.server.security.AuthRateLimiter;
+import tn.esprithub.server.security.CustomUserDetailsService;
+import tn.esprithub.server.user.dto.UserDto;
+import tn.esprithub.server.user.entity.User;
+import tn.esprithub.server.user.repository.UserRepository;
+import tn.esprithub.server.user.service.IUserService;
+import tn.esprithub.server.utils.mapper.UserMapperImpl;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceImplTest {
+    
+    private static final String EMAIL = "student@esprit.tn";
+    private static final String PASSWORD = "secret";
+    private static final String HASH = "{bcrypt}hash";
+    
+    @Mock
+    private IJwtService jwtService;
+    @Mock
+    private IRefreshTokenService refreshTokenService;
+    @Mock
+    private IUserService userService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+    @Mock
+    private AuthRateLimiter authRateLimiter;
+    
+    private AuthServiceImpl authService;
+    
+    @BeforeEach
+    void setUp() {
+        authService = new AuthServiceImpl(jwtService, refreshTokenService, userService, userRepository,
+                new UserMapperImpl(), passwordEncoder, userDetailsService, authRateLimiter);
+    }
+    
+    @Test
+    void loginReadsTheUserRowExactlyOnce() {
+        User user = user("ghp_token");
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(PASSWORD, HASH)).thenReturn(true);
+        when(jwtService.generateAccessToken(1L, EMAIL, UserRole.STUDENT, true)).thenReturn("access");
+        when(refreshTokenService.issue(1L, EMAIL)).thenReturn("refresh");
+        
+        AuthResponse response = authService.authenticateUser(new LoginRequest(EMAIL, PASSWORD));
+        
+        assertThat(response.getAccessToken()).isEqualTo("access");
+        assertThat(response.getRefreshToken()).isEqualTo("refresh");
+        assertThat(response.getUser().getEmail()).isEqualTo(EMAIL);
+        assertThat(response.isRequiresGithubAuth()).isFalse();
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(userService, userDetailsService);
+    }
+    
+    @Test
+    void loginUpgradesALegacyHashWithoutReadingTheRowAgain() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user(null)));
+        when(passwordEncoder.matches(PASSWORD, HASH)).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(HASH)).thenReturn(true);
+        when(passwordEncoder.encode(PASSWORD)).thenReturn("{bcrypt}stronger");
+        
+        AuthResponse response = authService.authenticateUser(new LoginRequest(EMAIL, PASSWORD));
+        
+        assertThat(response.isRequiresGithubAuth()).isTrue();
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verify(userRepository).updatePassword(1L, "{bcrypt}stronger");
+        verifyNoMoreInteractions(userRepository);
+        verify(userDetailsService).evict(1L, EMAIL);
+    }
+    
+    @Test
+    void loginRejectsWrongPasswordAfterASingleLookup() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user(null)));
+        when(passwordEncoder.matches(PASSWORD, HASH)).thenReturn(false);
+        
+        assertThatThrownBy(() -> authService.authenticateUser(new LoginRequest(EMAIL, PASSWORD)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid email or password");
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(jwtService, refreshTokenService);
+    }
+    
+    @Test
+    void loginHashesEvenWhenTheUserDoesNotExist() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}dummy");
+        
+        assertThatThrownBy(() -> authService.authenticateUser(new LoginRequest(EMAIL, PASSWORD)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(passwordEncoder).matches(eq(PASSWORD), any());
+        verifyNoInteractions(jwtService, refreshTokenService);
+    }
+    
+    @Test
+    void refreshHidesWhyATokenWasRefused() {
+        JwtClaims claims = refreshClaims();
+        when(jwtService.verifyToken("refresh")).thenReturn(Optional.of(claims));
+        when(userService.getUserById(1L)).thenReturn(Optional.of(UserDto.builder().id(1L).enabled(true).build()));
+        when(refreshTokenService.rotate("refresh", claims)).thenThrow(new IllegalArgumentException("Token reused"));
+        
+        assertThatThrownBy(() -> authService.refreshToken("refresh"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid refresh token");
+    }
+    
+    @Test
+    void refreshLetsDatabaseFailuresThroughSoTheRotationRollsBack() {
+        JwtClaims claims = refreshClaims();
+        when(jwtService.verifyToken("refresh")).thenReturn(Optional.of(claims));
+        when(userService.getUserById(1L)).thenReturn(Optional.of(UserDto.builder().id(1L).enabled(true).build()));
+        when(refreshTokenService.rotate("refresh", claims))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        
+        assertThatThrownBy(() -> authService.refreshToken("refresh"))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+    
+    private static JwtClaims refreshClaims() {
+        return JwtClaims.builder()
+                .tokenId("jti")
+                .userId(1L)
+                .email(EMAIL)
+                .refresh(true)
+                .build();
+    }
+    
+    private static User user(String githubToken) {
+        return User.builder()
+                .id(1L)
+                .email(EMAIL)
+                .firstName("Test")
+                .lastName("Student")
+                .password(HASH)
+                .role(UserRole.STUDENT)
+                .provider(AuthProvider.LOCAL)
+                .githubToken(githubToken)
+                .build();
+    }
+}
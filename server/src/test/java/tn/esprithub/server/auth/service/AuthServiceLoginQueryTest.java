@@ -0,0 +1,92 @@
+package tn.esprithub.server.auth.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tn.esprithub.server.auth.dto.AuthResponse;
+import tn.esprithub.server.auth.dto.LoginRequest;
+import tn.esprithub.server.common.enums.AuthProvider;
+import tn.esprithub.server.common.enums.UserRole;
+import tn.esprithub.server.security.AuthRateLimiter;
+import tn.esprithub.server.security.CustomUserDetailsService;
+import tn.esprithub.server.user.entity.User;
+import tn.esprithub.server.user.repository.UserRepository;
+import tn.esprithub.server.user.service.IUserService;
+import tn.esprithub.server.utils.mapper.UserMapperImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pins the number of SQL statements a login sends, against a real schema rather than mocks.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database=h2",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class AuthServiceLoginQueryTest {
+    
+    private static final String EMAIL = "student@esprit.tn";
+    private static final String PASSWORD = "secret";
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(5);
+    private AuthServiceImpl authService;
+    private Statistics statistics;
+    
+    @BeforeEach
+    void setUp() {
+        authService = new AuthServiceImpl(mock(IJwtService.class), mock(IRefreshTokenService.class),
+                mock(IUserService.class), userRepository, new UserMapperImpl(), passwordEncoder,
+                mock(CustomUserDetailsService.class), mock(AuthRateLimiter.class));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    @Test
+    void loginSendsASingleSelect() {
+        save(passwordEncoder.encode(PASSWORD));
+        
+        AuthResponse response = authService.authenticateUser(new LoginRequest(EMAIL, PASSWORD));
+        
+        assertThat(response.getUser().getEmail()).isEqualTo(EMAIL);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void loginWithAWeakerHashAddsOnlyTheUpgrade() {
+        save(new BCryptPasswordEncoder(4).encode(PASSWORD));
+        
+        authService.authenticateUser(new LoginRequest(EMAIL, PASSWORD));
+        
+        // The SELECT plus the UPDATE re-encoding the password
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+    
+    private void save(String passwordHash) {
+        entityManager.persist(User.builder()
+                .email(EMAIL)
+                .firstName("Test")
+                .lastName("Student")
+                .password(passwordHash)
+                .role(UserRole.STUDENT)
+                .provider(AuthProvider.LOCAL)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,101 @@
+package tn.esprithub.server.auth.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.esprithub.server.auth.dto.JwtClaims;
+import tn.esprithub.server.auth.entity.RefreshToken;
+import tn.esprithub.server.auth.repository.RefreshTokenRepository;
+import tn.esprithub.server.auth.repository.RefreshTokenRotation.RotatedToken;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceImplTest {
+    
+    private static final String EMAIL = "student@esprit.tn";
+    private static final UUID FAMILY = UUID.randomUUID();
+    
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+    @Mock
+    private IJwtService jwtService;
+    
+    private RefreshTokenServiceImpl refreshTokenService;
+    
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, jwtService, 604_800_000, 1000);
+    }
+    
+    @Test
+    void rotationIssuesTheNextTokenInTheSameFamily() {
+        when(refreshTokenRepository.rotate(anyString(), any())).thenReturn(Optional.of(new RotatedToken(FAMILY, 1L)));
+        when(jwtService.generateRefreshToken(1L, EMAIL)).thenReturn("next");
+        
+        assertThat(refreshTokenService.rotate("current", claims(1L))).isEqualTo("next");
+        
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getFamilyId()).isEqualTo(FAMILY);
+        assertThat(saved.getValue().getTokenHash()).hasSize(64).isNotEqualTo("next");
+    }
+    
+    @Test
+    void replayingARotatedTokenRevokesTheFamily() {
+        when(refreshTokenRepository.rotate(anyString(), any())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored(Instant.now(), false)));
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate("rotated", claims(1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(refreshTokenRepository).revokeFamily(FAMILY);
+    }
+    
+    @Test
+    void expiredTokenIsRejectedWithoutRevokingTheFamily() {
+        when(refreshTokenRepository.rotate(anyString(), any())).thenReturn(Optional.empty());
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(stored(null, false)));
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate("expired", claims(1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(refreshTokenRepository, never()).revokeFamily(any());
+    }
+    
+    @Test
+    void tokenOfAnotherUserIsRejected() {
+        when(refreshTokenRepository.rotate(anyString(), any())).thenReturn(Optional.of(new RotatedToken(FAMILY, 2L)));
+        
+        assertThatThrownBy(() -> refreshTokenService.rotate("current", claims(1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(refreshTokenRepository, never()).save(any());
+    }
+    
+    private static JwtClaims claims(Long userId) {
+        return JwtClaims.builder().userId(userId).email(EMAIL).refresh(true).build();
+    }
+    
+    private static RefreshToken stored(Instant usedAt, boolean revoked) {
+        return RefreshToken.builder()
+                .id(10L)
+                .tokenHash("0".repeat(64))
+                .familyId(FAMILY)
+                .userId(1L)
+                .expiresAt(Instant.now().minusSeconds(60))
+                .usedAt(usedAt)
+                .revoked(revoked)
+                .build();
+    }
+}
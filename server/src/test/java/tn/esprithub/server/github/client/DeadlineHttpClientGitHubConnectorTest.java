@@ -0,0 +1,97 @@
+package tn.esprithub.server.github.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeadlineHttpClientGitHubConnectorTest {
+    
+    private static final String BODY = "{\"login\":\"octocat\"}";
+    
+    private final CountDownLatch stopStalling = new CountDownLatch(1);
+    private HttpServer server;
+    private DeadlineHttpClientGitHubConnector connector;
+    
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/user", this::handleUser);
+        server.createContext("/stalled", this::handleStalled);
+        server.start();
+        connector = new DeadlineHttpClientGitHubConnector(HttpClient.newHttpClient(), Duration.ofMillis(300),
+                Duration.ofMillis(300));
+    }
+    
+    @AfterEach
+    void stopStub() {
+        stopStalling.countDown();
+        server.stop(0);
+    }
+    
+    @Test
+    void returnsTheWholeBody() throws IOException {
+        try (GitHubConnectorResponse response = connector.send(get("/user"));
+             InputStream body = response.bodyStream()) {
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+        }
+    }
+    
+    @Test
+    void failsWhenTheBodyStallsAfterTheHeaders() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThatThrownBy(() -> connector.send(get("/stalled")))
+                        .isInstanceOf(HttpTimeoutException.class));
+    }
+    
+    private GitHubConnectorRequest get(String path) throws IOException {
+        GitHubConnectorRequest request = mock(GitHubConnectorRequest.class);
+        when(request.method()).thenReturn("GET");
+        when(request.url()).thenReturn(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path).toURL());
+        when(request.allHeaders()).thenReturn(Map.of());
+        return request;
+    }
+    
+    private void handleUser(HttpExchange exchange) throws IOException {
+        byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+    
+    // Sends the headers and part of the body, then goes quiet
+    private void handleStalled(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(200, 1000);
+        OutputStream body = exchange.getResponseBody();
+        body.write("{\"login\":".getBytes(StandardCharsets.UTF_8));
+        body.flush();
+        try {
+            stopStalling.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.close();
+    }
+}
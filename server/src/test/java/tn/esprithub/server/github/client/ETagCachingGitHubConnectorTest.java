@@ -0,0 +1,212 @@
+package tn.esprithub.server.github.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+import org.kohsuke.github.extras.HttpClientGitHubConnector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagCachingGitHubConnectorTest {
+    
+    private static final String ETAG = "\"abc123\"";
+    private static final String BODY = "{\"login\":\"octocat\"}";
+    
+    private final List<String> ifNoneMatchHeaders = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+    
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/user", this::handleUser);
+        server.start();
+    }
+    
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+    
+    @Test
+    void revalidatesWithIfNoneMatchAndReplaysCachedBody() throws IOException {
+        ETagCachingGitHubConnector connector = connector(1024 * 1024, null);
+        
+        assertThat(read(connector.send(get("token-a")))).isEqualTo(BODY);
+        GitHubConnectorResponse revalidated = connector.send(get("token-a"));
+        
+        assertThat(revalidated.statusCode()).isEqualTo(200);
+        assertThat(read(revalidated)).isEqualTo(BODY);
+        assertThat(revalidated.header("X-RateLimit-Remaining")).isEqualTo("4998");
+        assertThat(ifNoneMatchHeaders).containsExactly("none", ETAG);
+        assertThat(count("miss")).isEqualTo(1);
+        assertThat(count("not_modified")).isEqualTo(1);
+    }
+    
+    @Test
+    void keepsSeparateEntriesPerToken() throws IOException {
+        ETagCachingGitHubConnector connector = connector(1024 * 1024, null);
+        
+        connector.send(get("token-a")).close();
+        connector.send(get("token-b")).close();
+        
+        assertThat(ifNoneMatchHeaders).containsExactly("none", "none");
+        assertThat(count("miss")).isEqualTo(2);
+    }
+    
+    @Test
+    void spillsEvictedEntriesToDiskAndPromotesThemBack(@TempDir Path spillDirectory) throws Exception {
+        // Smaller than a single entry, so every entry is evicted to disk right after it is stored
+        ETagCachingGitHubConnector connector = connector(16, spillDirectory);
+        
+        connector.send(get("token-a")).close();
+        awaitSpill();
+        GitHubConnectorResponse revalidated = connector.send(get("token-a"));
+        
+        assertThat(read(revalidated)).isEqualTo(BODY);
+        assertThat(ifNoneMatchHeaders).containsExactly("none", ETAG);
+    }
+    
+    @Test
+    void deletesExpiredAndHalfWrittenSpillFilesAtStartup(@TempDir Path spillDirectory) throws IOException {
+        Path fresh = Files.write(spillDirectory.resolve("a".repeat(64)), new byte[10]);
+        Path expired = Files.write(spillDirectory.resolve("b".repeat(64)), new byte[20]);
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        Path halfWritten = Files.write(spillDirectory.resolve("c".repeat(64) + ".1.writing"), new byte[30]);
+        
+        connector(1024 * 1024, spillDirectory);
+        
+        assertThat(fresh).exists();
+        assertThat(expired).doesNotExist();
+        assertThat(halfWritten).doesNotExist();
+        assertThat(meterRegistry.get("github.etag-cache.spilled-bytes").gauge().value()).isEqualTo(10);
+    }
+    
+    @Test
+    void countsNoSpilledBytesOnceAnEntryIsPromotedBack(@TempDir Path spillDirectory) throws Exception {
+        ETagCachingGitHubConnector connector = connector(16, spillDirectory);
+        
+        connector.send(get("token-a")).close();
+        awaitSpill();
+        assertThat(meterRegistry.get("github.etag-cache.spilled-bytes").gauge().value()).isPositive();
+        
+        connector.send(get("token-a")).close();
+        awaitSpills(2);
+        // The promoted entry is spilled again right away, so exactly one file is left and counted
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            List<Path> left = files.toList();
+            assertThat(left).hasSize(1);
+            assertThat(meterRegistry.get("github.etag-cache.spilled-bytes").gauge().value())
+                    .isEqualTo(Files.size(left.get(0)));
+        }
+    }
+    
+    private ETagCachingGitHubConnector connector(long maxMemoryBytes, Path spillDirectory) {
+        return new ETagCachingGitHubConnector(new HttpClientGitHubConnector(), maxMemoryBytes,
+                spillDirectory, 1024 * 1024, Duration.ofDays(1), meterRegistry);
+    }
+    
+    private void handleUser(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatchHeaders.add(ifNoneMatch == null ? "none" : ifNoneMatch);
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        
+        if (ETAG.equals(ifNoneMatch)) {
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", "4998");
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", "4999");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+        exchange.close();
+    }
+    
+    private GitHubConnectorRequest get(String token) throws IOException {
+        URL url = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/user").toURL();
+        return new StubRequest(url, Map.of("Authorization", List.of("token " + token),
+                "Accept", List.of("application/vnd.github+json")));
+    }
+    
+    private double count(String result) {
+        return meterRegistry.get("github.etag-cache.requests").tag("result", result).counter().count();
+    }
+    
+    private static String read(GitHubConnectorResponse response) throws IOException {
+        try (InputStream body = response.bodyStream()) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    // The spill counter moves only once the file is fully written; the file itself shows up earlier
+    private void awaitSpill() throws Exception {
+        awaitSpills(1);
+    }
+    
+    private void awaitSpills(int count) throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            if (meterRegistry.get("github.etag-cache.spills").counter().count() >= count) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Fewer than " + count + " cache entries were spilled to disk");
+    }
+    
+    private record StubRequest(URL url, Map<String, List<String>> allHeaders) implements GitHubConnectorRequest {
+        
+        @Override
+        public String method() {
+            return "GET";
+        }
+        
+        @Override
+        public String header(String name) {
+            return allHeaders.entrySet().stream()
+                    .filter(header -> header.getKey().equalsIgnoreCase(name))
+                    .map(header -> String.join(",", header.getValue()))
+                    .findFirst()
+                    .orElse(null);
+        }
+        
+        @Override
+        public String contentType() {
+            return null;
+        }
+        
+        @Override
+        public InputStream body() {
+            return null;
+        }
+        
+        @Override
+        public boolean hasBody() {
+            return false;
+        }
+    }
+}
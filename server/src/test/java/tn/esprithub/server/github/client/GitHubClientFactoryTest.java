@@ -0,0 +1,77 @@
+package tn.esprithub.server.github.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.HttpException;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class GitHubClientFactoryTest {
+    
+    private final AtomicInteger calls = new AtomicInteger();
+    
+    @Test
+    void failsInsteadOfWaitingOutAPrimaryRateLimit() {
+        long reset = Instant.now().plusSeconds(3600).getEpochSecond();
+        GitHub gitHub = clientAnswering(403, Map.of(
+                "X-RateLimit-Limit", List.of("5000"),
+                "X-RateLimit-Remaining", List.of("0"),
+                "X-RateLimit-Reset", List.of(Long.toString(reset))));
+        
+        assertFailsOnce(gitHub, 403);
+    }
+    
+    @Test
+    void failsInsteadOfWaitingOutASecondaryRateLimit() {
+        GitHub gitHub = clientAnswering(429, Map.of("Retry-After", List.of("3600")));
+        
+        assertFailsOnce(gitHub, 429);
+    }
+    
+    private void assertFailsOnce(GitHub gitHub, int status) {
+        int callsBefore = calls.get();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThatThrownBy(() -> gitHub.getRepository("esprit/classroom"))
+                        .isInstanceOfSatisfying(HttpException.class,
+                                e -> assertThat(e.getResponseCode()).isEqualTo(status)));
+        assertThat(calls.get() - callsBefore).isEqualTo(1);
+    }
+    
+    private GitHub clientAnswering(int status, Map<String, List<String>> headers) {
+        GitHubClientFactory factory = new GitHubClientFactory(request -> {
+            calls.incrementAndGet();
+            return new StubResponse(request, status, headers);
+        }, "https://api.github.test", Duration.ofMinutes(1), 10, new SimpleMeterRegistry());
+        return factory.newClient("token");
+    }
+    
+    private static final class StubResponse extends GitHubConnectorResponse {
+        
+        StubResponse(GitHubConnectorRequest request, int statusCode, Map<String, List<String>> headers) {
+            super(request, statusCode, headers);
+        }
+        
+        @Override
+        public InputStream bodyStream() {
+            return new ByteArrayInputStream("{\"message\":\"rate limited\"}".getBytes(StandardCharsets.UTF_8));
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
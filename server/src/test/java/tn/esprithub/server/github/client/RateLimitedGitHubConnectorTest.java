@@ -0,0 +1,274 @@
+package tn.esprithub.server.github.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitedGitHubConnectorTest {
+    
+    private static final Duration SHORT_WAIT = Duration.ofMillis(50);
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<GitHubRequestPriority> dispatched = new CopyOnWriteArrayList<>();
+    private volatile Map<String, List<String>> replyHeaders = Map.of();
+    private volatile int replyStatus = 200;
+    
+    @Test
+    void dispatchesWaitingInteractiveCallsBeforeBackgroundOnes() throws Exception {
+        CountDownLatch onTheWire = new CountDownLatch(1);
+        CountDownLatch respond = new CountDownLatch(1);
+        RateLimitedGitHubConnector connector = connector(request -> {
+            if (onTheWire.getCount() > 0) {
+                onTheWire.countDown();
+                await(respond);
+            }
+            return answer(request);
+        }, 1, 1, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        
+        // The first call holds the only slot while one call of each priority queues up behind it
+        CompletableFuture<Void> first = sendAsync(connector, GitHubRequestPriority.BACKGROUND, "token a");
+        assertThat(onTheWire.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> background = sendAsync(connector, GitHubRequestPriority.BACKGROUND, "token a");
+        awaitQueued(GitHubRequestPriority.BACKGROUND, 1);
+        CompletableFuture<Void> interactive = sendAsync(connector, GitHubRequestPriority.INTERACTIVE, "token a");
+        awaitQueued(GitHubRequestPriority.INTERACTIVE, 1);
+        
+        respond.countDown();
+        CompletableFuture.allOf(first, background, interactive).get(5, TimeUnit.SECONDS);
+        
+        assertThat(dispatched).containsExactly(GitHubRequestPriority.BACKGROUND, GitHubRequestPriority.INTERACTIVE,
+                GitHubRequestPriority.BACKGROUND);
+    }
+    
+    @Test
+    void holdsOnlyTheCredentialWhoseBudgetIsSpent() throws IOException {
+        RateLimitedGitHubConnector connector = connector(this::answer, 4, 4, SHORT_WAIT, SHORT_WAIT);
+        replyStatus = 403;
+        replyHeaders = budget(0, 5000, Instant.now().plusSeconds(3600));
+        connector.send(get("token a")).close();
+        
+        replyStatus = 200;
+        replyHeaders = Map.of();
+        assertThatThrownBy(() -> connector.send(get("token a")))
+                .isInstanceOf(GitHubBudgetExhaustedException.class)
+                .hasMessageContaining("retry in");
+        connector.send(get("token b")).close();
+        
+        assertThat(dispatched).hasSize(2);
+        assertThat(meterRegistry.get("github.scheduler.budget.exhausted").gauge().value()).isEqualTo(1);
+    }
+    
+    @Test
+    void admitsAWaitingCallOnceTheBudgetResets() throws IOException {
+        RateLimitedGitHubConnector connector = connector(this::answer, 4, 4, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        // Reset times are whole seconds, so this one is at most two seconds away
+        replyHeaders = budget(0, 5000, Instant.now().plusSeconds(1));
+        connector.send(get("token a")).close();
+        
+        replyHeaders = Map.of();
+        long start = System.nanoTime();
+        connector.send(get("token a")).close();
+        
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isPositive().isLessThan(Duration.ofSeconds(3));
+        assertThat(dispatched).hasSize(2);
+    }
+    
+    @Test
+    void rejectsAnInteractiveCallThatCannotBeAdmittedWithinItsMaxWait() throws IOException {
+        RateLimitedGitHubConnector connector = connector(this::answer, 4, 4, SHORT_WAIT, Duration.ofSeconds(30));
+        replyHeaders = budget(0, 5000, Instant.now().plusSeconds(3600));
+        connector.send(get("token a")).close();
+        
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> connector.send(get("token a"))).isInstanceOf(GitHubBudgetExhaustedException.class);
+        Duration waited = Duration.ofNanos(System.nanoTime() - start);
+        
+        assertThat(waited).isGreaterThanOrEqualTo(SHORT_WAIT).isLessThan(Duration.ofSeconds(5));
+        assertThat(meterRegistry.get("github.scheduler.queue.depth").tag("priority", "interactive").gauge().value())
+                .isZero();
+    }
+    
+    @Test
+    void keepsTheBackgroundReserveForInteractiveCalls() throws IOException {
+        RateLimitedGitHubConnector connector = connector(this::answer, 4, 4, SHORT_WAIT, SHORT_WAIT);
+        // 10 of 100 left is under the 20% reserve
+        replyHeaders = budget(10, 100, Instant.now().plusSeconds(3600));
+        connector.send(get("token a")).close();
+        
+        assertThatThrownBy(() -> GitHubRequestPriority.callAs(GitHubRequestPriority.BACKGROUND,
+                () -> connector.send(get("token a")))).isInstanceOf(GitHubBudgetExhaustedException.class);
+        connector.send(get("token a")).close();
+        
+        assertThat(dispatched).containsExactly(GitHubRequestPriority.INTERACTIVE, GitHubRequestPriority.INTERACTIVE);
+    }
+    
+    @Test
+    void halvesConcurrencyOnASecondaryLimitAndRaisesItAgainAfterSuccesses() throws IOException {
+        RateLimitedGitHubConnector connector = connector(this::answer, 8, 16, SHORT_WAIT, SHORT_WAIT);
+        replyStatus = 429;
+        replyHeaders = Map.of("Retry-After", List.of("0"));
+        connector.send(get("token a")).close();
+        assertThat(concurrencyLimit()).isEqualTo(4);
+        
+        replyStatus = 200;
+        replyHeaders = Map.of();
+        // One step up per window of as many successes as the current limit
+        sendAll(connector, 3);
+        assertThat(concurrencyLimit()).isEqualTo(4);
+        sendAll(connector, 1);
+        assertThat(concurrencyLimit()).isEqualTo(5);
+        sendAll(connector, 5);
+        assertThat(concurrencyLimit()).isEqualTo(6);
+    }
+    
+    @Test
+    void pausesTheCredentialForTheRetryAfterOfASecondaryLimit() throws IOException {
+        RateLimitedGitHubConnector connector = connector(this::answer, 4, 4, SHORT_WAIT, SHORT_WAIT);
+        replyStatus = 403;
+        replyHeaders = Map.of("Retry-After", List.of("60"));
+        connector.send(get("token a")).close();
+        
+        replyStatus = 200;
+        replyHeaders = Map.of();
+        assertThatThrownBy(() -> connector.send(get("token a")))
+                .isInstanceOf(GitHubBudgetExhaustedException.class)
+                .hasMessageMatching(".*retry in (59|60)s");
+        assertThat(concurrencyLimit()).isEqualTo(2);
+    }
+    
+    private RateLimitedGitHubConnector connector(GitHubConnector delegate, int initialConcurrency, int maxConcurrency,
+                                                 Duration interactiveMaxWait, Duration backgroundMaxWait) {
+        return new RateLimitedGitHubConnector(delegate, initialConcurrency, maxConcurrency, 0.2, interactiveMaxWait,
+                backgroundMaxWait, meterRegistry);
+    }
+    
+    private GitHubConnectorResponse answer(GitHubConnectorRequest request) {
+        dispatched.add(GitHubRequestPriority.current());
+        return new StubResponse(request, replyStatus, replyHeaders);
+    }
+    
+    private void sendAll(RateLimitedGitHubConnector connector, int calls) throws IOException {
+        for (int i = 0; i < calls; i++) {
+            connector.send(get("token a")).close();
+        }
+    }
+    
+    private CompletableFuture<Void> sendAsync(RateLimitedGitHubConnector connector, GitHubRequestPriority priority,
+                                              String token) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                GitHubRequestPriority.callAs(priority, () -> connector.send(get(token))).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+    
+    private void awaitQueued(GitHubRequestPriority priority, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (meterRegistry.get("github.scheduler.queue.depth")
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT)).gauge().value() >= count) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("Fewer than " + count + " " + priority + " calls were queued");
+    }
+    
+    private double concurrencyLimit() {
+        return meterRegistry.get("github.scheduler.concurrency.limit").gauge().value();
+    }
+    
+    private static Map<String, List<String>> budget(int remaining, int limit, Instant reset) {
+        return Map.of("X-RateLimit-Remaining", List.of(Integer.toString(remaining)),
+                "X-RateLimit-Limit", List.of(Integer.toString(limit)),
+                "X-RateLimit-Reset", List.of(Long.toString(reset.getEpochSecond())));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static GitHubConnectorRequest get(String token) {
+        try {
+            return new StubRequest(URI.create("https://api.github.test/user").toURL(), "token " + token);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private record StubRequest(URL url, String authorization) implements GitHubConnectorRequest {
+        
+        @Override
+        public String method() {
+            return "GET";
+        }
+        
+        @Override
+        public Map<String, List<String>> allHeaders() {
+            return Map.of("Authorization", List.of(authorization));
+        }
+        
+        @Override
+        public String header(String name) {
+            return "Authorization".equalsIgnoreCase(name) ? authorization : null;
+        }
+        
+        @Override
+        public String contentType() {
+            return null;
+        }
+        
+        @Override
+        public InputStream body() {
+            return null;
+        }
+        
+        @Override
+        public boolean hasBody() {
+            return false;
+        }
+    }
+    
+    private static final class StubResponse extends GitHubConnectorResponse {
+        
+        StubResponse(GitHubConnectorRequest request, int statusCode, Map<String, List<String>> headers) {
+            super(request, statusCode, headers);
+        }
+        
+        @Override
+        public InputStream bodyStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package tn.esprithub.server.github.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.connector.GitHubConnectorRequest;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResilientGitHubConnectorTest {
+    
+    private static final Duration OPEN_DURATION = Duration.ofMillis(50);
+    
+    private final GitHubConnectorRequest request = mock(GitHubConnectorRequest.class);
+    private final Deque<Object> outcomes = new ArrayDeque<>();
+    private int delegateCalls;
+    
+    @Test
+    void opensOnceTheFailureShareOfTheSlidingWindowReachesTheThreshold() throws IOException {
+        ResilientGitHubConnector connector = connector(4, 4, 1);
+        
+        // F S S S S: the oldest failure slides out, leaving 0 of 4
+        sendAll(connector, 500, 200, 200, 200, 200);
+        // Window S S S F: 1 of 4 stays under the threshold
+        sendAll(connector, 500);
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.CLOSED);
+        
+        // Window S S F F: 2 of 4 opens the circuit
+        sendAll(connector, 500);
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.OPEN);
+        
+        int callsBefore = delegateCalls;
+        assertThatThrownBy(() -> connector.send(request)).isInstanceOf(GitHubUnavailableException.class);
+        assertThat(delegateCalls).isEqualTo(callsBefore);
+    }
+    
+    @Test
+    void waitsForMinimumCallsBeforeOpening() throws IOException {
+        ResilientGitHubConnector connector = connector(10, 5, 1);
+        
+        sendAll(connector, 500, 500, 500, 500);
+        
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.CLOSED);
+    }
+    
+    @Test
+    void handsBackTheHalfOpenPermitOfACallTheBulkheadTurnedAway() throws Exception {
+        ResilientGitHubConnector connector = new ResilientGitHubConnector(this::answer, 1, Duration.ofMillis(50), 0.5, 2,
+                2, OPEN_DURATION, 2, new SimpleMeterRegistry());
+        sendAll(connector, 500, 500);
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+        
+        // The first trial call holds the only bulkhead slot until it is let through
+        CountDownLatch onTheWire = new CountDownLatch(1);
+        CountDownLatch respond = new CountDownLatch(1);
+        outcomes.add((Reply) () -> {
+            onTheWire.countDown();
+            respond.await();
+            return 200;
+        });
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                connector.send(request).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertThat(onTheWire.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        // The second trial call is turned away by the full bulkhead and gives its permit back
+        assertThatThrownBy(() -> connector.send(request))
+                .isInstanceOf(GitHubUnavailableException.class)
+                .hasMessageContaining("concurrent");
+        respond.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.HALF_OPEN);
+        
+        sendAll(connector, 200);
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.CLOSED);
+    }
+    
+    @Test
+    void reopensWhenAHalfOpenTrialFails() throws Exception {
+        ResilientGitHubConnector connector = connector(2, 2, 2);
+        sendAll(connector, 500, 500);
+        Thread.sleep(OPEN_DURATION.toMillis() * 2);
+        
+        sendAll(connector, 200, 503);
+        
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.OPEN);
+    }
+    
+    @Test
+    void neverSeesCallsTheSchedulerAboveItHoldsBack() throws IOException {
+        ResilientGitHubConnector connector = connector(2, 2, 1);
+        // Wired as in GitHubClientConfig: the scheduler admits calls before the breaker sees them
+        RateLimitedGitHubConnector scheduler = new RateLimitedGitHubConnector(connector, 4, 4, 0,
+                Duration.ofMillis(20), Duration.ofMillis(20), new SimpleMeterRegistry());
+        when(request.url()).thenReturn(URI.create("https://api.github.test/user").toURL());
+        
+        // One failure that also reports the budget as spent until the reset
+        String reset = Long.toString(Instant.now().plusSeconds(3600).getEpochSecond());
+        outcomes.add(new StubReply(500, Map.of("X-RateLimit-Remaining", List.of("0"), "X-RateLimit-Reset", List.of(reset))));
+        scheduler.send(request).close();
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> scheduler.send(request)).isInstanceOf(GitHubBudgetExhaustedException.class);
+        }
+        
+        // Held-back calls never reached the breaker, so its window still holds one call
+        assertThat(delegateCalls).isEqualTo(1);
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.CLOSED);
+    }
+    
+    @Test
+    void countsIoErrorsAsFailures() {
+        ResilientGitHubConnector connector = connector(2, 2, 1);
+        
+        for (int i = 0; i < 2; i++) {
+            outcomes.add(new IOException("connection reset"));
+            assertThatThrownBy(() -> connector.send(request)).isInstanceOf(IOException.class);
+        }
+        
+        assertThat(connector.getState()).isEqualTo(ResilientGitHubConnector.State.OPEN);
+    }
+    
+    private ResilientGitHubConnector connector(int windowSize, int minimumCalls, int halfOpenCalls) {
+        return new ResilientGitHubConnector(this::answer, 10, Duration.ofMillis(100), 0.5, windowSize,
+                minimumCalls, OPEN_DURATION, halfOpenCalls, new SimpleMeterRegistry());
+    }
+    
+    private void sendAll(ResilientGitHubConnector connector, int... statuses) throws IOException {
+        for (int status : statuses) {
+            outcomes.add(status);
+            connector.send(request).close();
+        }
+    }
+    
+    private GitHubConnectorResponse answer(GitHubConnectorRequest request) throws IOException {
+        delegateCalls++;
+        Object outcome = outcomes.removeFirst();
+        if (outcome instanceof IOException e) {
+            throw e;
+        }
+        if (outcome instanceof Reply reply) {
+            try {
+                outcome = reply.status();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        if (outcome instanceof StubReply reply) {
+            return new StubResponse(request, reply.status(), reply.headers());
+        }
+        return new StubResponse(request, (Integer) outcome, Map.of());
+    }
+    
+    // A status decided while the call is on the wire
+    private interface Reply {
+        int status() throws InterruptedException;
+    }
+    
+    private record StubReply(int status, Map<String, List<String>> headers) {
+    }
+    
+    private static final class StubResponse extends GitHubConnectorResponse {
+        
+        StubResponse(GitHubConnectorRequest request, int statusCode, Map<String, List<String>> headers) {
+            super(request, statusCode, headers);
+        }
+        
+        @Override
+        public InputStream bodyStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package tn.esprithub.server.github.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tn.esprithub.server.common.exception.GlobalExceptionHandler;
+import tn.esprithub.server.common.exception.ServiceUnavailableException;
+import tn.esprithub.server.github.service.IGitHubWebhookService;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class GitHubWebhookControllerTest {
+    
+    private static final byte[] PAYLOAD = "{\"action\":\"opened\"}".getBytes(StandardCharsets.UTF_8);
+    private static final String SIGNATURE = "sha256=00";
+    private static final int MAX_PAYLOAD_BYTES = 25 * 1024 * 1024;
+    
+    @Mock
+    private IGitHubWebhookService webhookService;
+    
+    private GitHubWebhookController controller;
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        controller = new GitHubWebhookController(webhookService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+    
+    @Test
+    void acceptsASignedDeliveryWith202() throws Exception {
+        when(webhookService.isSignatureValid(PAYLOAD, SIGNATURE)).thenReturn(true);
+        when(webhookService.accept("pull_request", "delivery-1", PAYLOAD)).thenReturn(true);
+        
+        mockMvc.perform(delivery("pull_request", "delivery-1", PAYLOAD))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message").value("Webhook accepted"));
+    }
+    
+    @Test
+    void acknowledgesUnhandledEventTypesWithoutQueueingThem() throws Exception {
+        when(webhookService.isSignatureValid(PAYLOAD, SIGNATURE)).thenReturn(true);
+        when(webhookService.accept("issues", "delivery-1", PAYLOAD)).thenReturn(false);
+        
+        mockMvc.perform(delivery("issues", "delivery-1", PAYLOAD))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message").value("Webhook event ignored"));
+    }
+    
+    @Test
+    void rejectsABadSignatureBeforeLookingAtTheHeaders() throws Exception {
+        when(webhookService.isSignatureValid(PAYLOAD, SIGNATURE)).thenReturn(false);
+        
+        mockMvc.perform(delivery(null, null, PAYLOAD))
+                .andExpect(status().isUnauthorized());
+        verify(webhookService, never()).accept(anyString(), anyString(), any());
+    }
+    
+    @Test
+    void rejectsMissingOrOverlongDeliveryHeaders() throws Exception {
+        when(webhookService.isSignatureValid(PAYLOAD, SIGNATURE)).thenReturn(true);
+        
+        mockMvc.perform(delivery("push", null, PAYLOAD))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delivery("push", "d".repeat(65), PAYLOAD))
+                .andExpect(status().isBadRequest());
+        verify(webhookService, never()).accept(anyString(), anyString(), any());
+    }
+    
+    @Test
+    void answers503WithRetryAfterWhenTheQueueIsFull() throws Exception {
+        when(webhookService.isSignatureValid(PAYLOAD, SIGNATURE)).thenReturn(true);
+        when(webhookService.accept(eq("push"), eq("delivery-1"), any()))
+                .thenThrow(new ServiceUnavailableException("Webhook queue is full, please redeliver later", 10));
+        
+        mockMvc.perform(delivery("push", "delivery-1", PAYLOAD))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "10"));
+    }
+    
+    @Test
+    void refusesADeclaredOversizePayloadWithoutReadingIt() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentLengthLong()).thenReturn(MAX_PAYLOAD_BYTES + 1L);
+        
+        assertThat(controller.receive("push", "delivery-1", SIGNATURE, request).getStatusCode())
+                .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verify(request, never()).getInputStream();
+        verifyNoInteractions(webhookService);
+    }
+    
+    @Test
+    void capsTheReadOfAChunkedPayload() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentLengthLong()).thenReturn(-1L);
+        when(request.getInputStream()).thenReturn(new DelegatingServletInputStream(new EndlessStream()));
+        
+        assertThat(controller.receive("push", "delivery-1", SIGNATURE, request).getStatusCode())
+                .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verifyNoInteractions(webhookService);
+    }
+    
+    private static MockHttpServletRequestBuilder delivery(String eventType, String deliveryId, byte[] payload) {
+        MockHttpServletRequestBuilder request = post("/github/webhooks")
+                .header("X-Hub-Signature-256", SIGNATURE)
+                .contentType("application/json")
+                .content(payload);
+        if (eventType != null) {
+            request.header("X-GitHub-Event", eventType);
+        }
+        if (deliveryId != null) {
+            request.header("X-GitHub-Delivery", deliveryId);
+        }
+        return request;
+    }
+    
+    // A body without Content-Length that never ends
+    private static final class EndlessStream extends InputStream {
+        
+        @Override
+        public int read() {
+            return 'x';
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return length;
+        }
+    }
+}
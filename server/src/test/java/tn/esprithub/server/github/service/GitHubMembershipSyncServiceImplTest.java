@@ -0,0 +1,149 @@
+package tn.esprithub.server.github.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kohsuke.github.GHTeam;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.extras.HttpClientGitHubConnector;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import tn.esprithub.server.common.enums.UserRole;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+import tn.esprithub.server.github.dto.GitHubMembershipSyncSummary;
+import tn.esprithub.server.github.service.GitHubMembershipSyncServiceImpl.DesiredMember;
+import tn.esprithub.server.github.service.GitHubMembershipSyncServiceImpl.MembershipPlan;
+import tn.esprithub.server.github.service.GitHubMembershipSyncServiceImpl.TeamState;
+import tn.esprithub.server.github.simulator.GitHubApiSimulator;
+import tn.esprithub.server.github.simulator.GitHubSimulatorSettings;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GitHubMembershipSyncServiceImplTest {
+    
+    private static final String TOKEN = "gho_org_admin";
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private GitHubClientFactory gitHubClientFactory;
+    @Mock
+    private ScheduledJobLock jobLock;
+    
+    private GitHubApiSimulator simulator;
+    private GitHub gitHub;
+    private GitHubMembershipSyncServiceImpl service;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        simulator = new GitHubApiSimulator(0, GitHubSimulatorSettings.builder().membersPerTeam(20).build());
+        simulator.start();
+        gitHub = new GitHubBuilder()
+                .withEndpoint(simulator.url())
+                .withConnector(new HttpClientGitHubConnector(HttpClient.newHttpClient()))
+                .withOAuthToken(TOKEN)
+                .build();
+        service = new GitHubMembershipSyncServiceImpl(jdbcTemplate, gitHubClientFactory, jobLock, true, TOKEN,
+                "sim-org-1", "team-1", 4, 1000, 200, Duration.ofDays(7), new SimpleMeterRegistry());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        simulator.stop();
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void appliesOnlyTheDifferenceAndNothingOnceReconciled() throws IOException {
+        List<Long> current = gitHub.getOrganization("sim-org-1").getTeamBySlug("team-1").listMembers().toList()
+                .stream().map(GHUser::getId).sorted().toList();
+        List<DesiredMember> desired = new ArrayList<>();
+        // Keep all but the last two members, promote the first one and add two newcomers
+        desired.add(member(current.get(0), UserRole.TEACHER));
+        current.subList(1, current.size() - 2).forEach(id -> desired.add(member(id, UserRole.STUDENT)));
+        desired.add(member(5, UserRole.STUDENT));
+        desired.add(member(6, UserRole.TEACHER));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(desired);
+        when(gitHubClientFactory.newClient(TOKEN)).thenReturn(gitHub);
+        when(jobLock.tryLock(GitHubMembershipSyncServiceImpl.JOB_NAME))
+                .thenAnswer(invocation -> Optional.of(mock(ScheduledJobLock.Handle.class)));
+        
+        GitHubMembershipSyncSummary first = service.syncMemberships();
+        
+        assertThat(first.getAdded()).isEqualTo(2);
+        assertThat(first.getRoleChanged()).isEqualTo(1);
+        assertThat(first.getRemoved()).isEqualTo(2);
+        assertThat(first.getFailed()).isZero();
+        GHTeam team = gitHub.getOrganization("sim-org-1").getTeamBySlug("team-1");
+        assertThat(team.listMembers(GHTeam.Role.MAINTAINER).toList())
+                .extracting(GHUser::getId)
+                .containsExactlyInAnyOrder(current.get(0), 6L);
+        
+        long requestsBefore = simulator.getRequestCount();
+        GitHubMembershipSyncSummary second = service.syncMemberships();
+        
+        assertThat(second.getAdded() + second.getRoleChanged() + second.getRemoved()).isZero();
+        // At most organization, team, both listings and the admin's own profile: no call per user
+        assertThat(simulator.getRequestCount() - requestsBefore).isLessThanOrEqualTo(5);
+    }
+    
+    @Test
+    void skipsTheRunWhileAnotherNodeHoldsTheLock() {
+        when(jobLock.tryLock(GitHubMembershipSyncServiceImpl.JOB_NAME)).thenReturn(Optional.empty());
+        long requestsBefore = simulator.getRequestCount();
+        
+        assertThatThrownBy(() -> service.syncMemberships())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("another node");
+        assertThat(simulator.getRequestCount()).isEqualTo(requestsBefore);
+    }
+    
+    @Test
+    void plansMinimalChangesAndNeverRemovesTheAdmin() {
+        TeamState actual = new TeamState(null, 99, new long[]{1, 2, 3, 4}, new long[]{99}, Map.of());
+        
+        MembershipPlan plan = GitHubMembershipSyncServiceImpl.plan(
+                List.of(member(2, UserRole.STUDENT), member(3, UserRole.TEACHER), member(3, UserRole.STUDENT),
+                        member(7, UserRole.STUDENT)),
+                actual);
+        
+        assertThat(plan.addMembers()).containsExactly(7);
+        assertThat(plan.addMaintainers()).containsExactly(3);
+        // The admin running the sync is never removed from its own team
+        assertThat(plan.remove()).containsExactly(1, 4);
+    }
+    
+    @Test
+    void mergesSortedIdArrays() {
+        long[] a = {1, 3, 5, 7};
+        long[] b = {2, 3, 7, 9};
+        
+        assertThat(GitHubMembershipSyncServiceImpl.difference(a, b)).containsExactly(1, 5);
+        assertThat(GitHubMembershipSyncServiceImpl.union(a, b)).containsExactly(1, 2, 3, 5, 7, 9);
+        assertThat(GitHubMembershipSyncServiceImpl.difference(new long[0], b)).isEmpty();
+    }
+    
+    private static DesiredMember member(long githubId, UserRole role) {
+        return new DesiredMember(githubId, "sim-user-" + githubId, role);
+    }
+}
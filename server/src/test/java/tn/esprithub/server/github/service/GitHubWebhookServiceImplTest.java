@@ -0,0 +1,133 @@
+package tn.esprithub.server.github.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.esprithub.server.common.exception.ServiceUnavailableException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GitHubWebhookServiceImplTest {
+    
+    private static final String SECRET = "webhook-secret";
+    private static final byte[] PAYLOAD = """
+            {"action":"opened","repository":{"id":7,"full_name":"sim-org-1/repo-1"},\
+            "organization":{"login":"sim-org-1"},"sender":{"login":"sim-user-1"}}"""
+            .getBytes(StandardCharsets.UTF_8);
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private IGitHubRepositoryMirrorService repositoryMirror;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GitHubWebhookServiceImpl service;
+    
+    @AfterEach
+    void stopConsumers() throws InterruptedException {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+    
+    @Test
+    void acceptsOnlyTheSignatureOfTheConfiguredSecret() throws Exception {
+        service = service(SECRET, 10);
+        
+        assertThat(service.isSignatureValid(PAYLOAD, sign(SECRET, PAYLOAD))).isTrue();
+        assertThat(service.isSignatureValid(PAYLOAD, sign("other-secret", PAYLOAD))).isFalse();
+        assertThat(service.isSignatureValid("{}".getBytes(StandardCharsets.UTF_8), sign(SECRET, PAYLOAD))).isFalse();
+        assertThat(service.isSignatureValid(PAYLOAD, "sha256=not-hex")).isFalse();
+        assertThat(service.isSignatureValid(PAYLOAD, sign(SECRET, PAYLOAD).substring("sha256=".length()))).isFalse();
+        assertThat(service.isSignatureValid(PAYLOAD, null)).isFalse();
+    }
+    
+    @Test
+    void rejectsEveryDeliveryWhileNoSecretIsConfigured() throws Exception {
+        service = service("", 10);
+        
+        assertThat(service.isSignatureValid(PAYLOAD, sign(SECRET, PAYLOAD))).isFalse();
+    }
+    
+    @Test
+    void countsUnhandledEventTypesWithoutQueueingThem() {
+        service = service(SECRET, 10);
+        
+        assertThat(service.accept("issues", "delivery-1", PAYLOAD)).isFalse();
+        
+        assertThat(meterRegistry.get("github.webhooks.events").tag("result", "ignored").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("github.webhooks.queue.depth").gauge().value()).isZero();
+        verifyNoInteractions(jdbcTemplate);
+    }
+    
+    @Test
+    void turnsAFullQueueInto503() throws Exception {
+        CountDownLatch inInsert = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenAnswer(invocation -> {
+            inInsert.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        service = service(SECRET, 1);
+        
+        // The consumer holds the first delivery in the insert, the second fills the queue
+        assertThat(service.accept("pull_request", "delivery-1", PAYLOAD)).isTrue();
+        assertThat(inInsert.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(service.accept("pull_request", "delivery-2", PAYLOAD)).isTrue();
+        
+        assertThatThrownBy(() -> service.accept("pull_request", "delivery-3", PAYLOAD))
+                .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isPositive());
+        assertThat(meterRegistry.get("github.webhooks.events").tag("result", "queue_full").counter().count())
+                .isEqualTo(1);
+        release.countDown();
+    }
+    
+    @Test
+    void retriesABatchUntilTheDatabaseIsBack() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenReturn(List.of("delivery-1"));
+        service = service(SECRET, 10);
+        
+        service.accept("pull_request", "delivery-1", PAYLOAD);
+        
+        verify(jdbcTemplate, timeout(5000).times(2)).queryForList(anyString(), eq(String.class), any(Object[].class));
+        assertThat(meterRegistry.get("github.webhooks.events").tag("result", "failed").counter().count()).isZero();
+    }
+    
+    private GitHubWebhookServiceImpl service(String secret, int queueCapacity) {
+        return new GitHubWebhookServiceImpl(jdbcTemplate, new ObjectMapper(), repositoryMirror, secret, "",
+                queueCapacity, 1, 200, meterRegistry);
+    }
+    
+    private static String sign(String secret, byte[] payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(payload));
+    }
+}
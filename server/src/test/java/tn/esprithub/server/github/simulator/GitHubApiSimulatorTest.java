@@ -0,0 +1,149 @@
+package tn.esprithub.server.github.simulator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHMyself;
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.HttpException;
+import org.kohsuke.github.extras.HttpClientGitHubConnector;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GitHubApiSimulatorTest {
+    
+    private static final String TOKEN = "gho_simulated";
+    
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private GitHubApiSimulator simulator;
+    
+    @AfterEach
+    void stopSimulator() {
+        if (simulator != null) {
+            simulator.stop();
+        }
+    }
+    
+    @Test
+    void servesUsersReposAndTeamsToTheGitHubClient() throws IOException {
+        start(GitHubSimulatorSettings.builder().reposPerUser(45).build());
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(simulator.url())
+                .withConnector(new HttpClientGitHubConnector(httpClient))
+                .withOAuthToken(TOKEN)
+                .build();
+        
+        GHMyself myself = gitHub.getMyself();
+        
+        assertThat(myself.getLogin()).isEqualTo(simulator.loginFor(TOKEN));
+        // Three pages of 20, following the Link header
+        assertThat(myself.listRepositories(20).toList()).hasSize(45);
+        assertThat(gitHub.getOrganization("sim-org-1").listTeams().toList()).hasSize(5);
+        assertThat(gitHub.getRepository(myself.getLogin() + "/repo-1").listCommits().withPageSize(100).toList())
+                .hasSize(100);
+    }
+    
+    @Test
+    void provisionsRepositoriesFromATemplate() throws IOException {
+        start(GitHubSimulatorSettings.builder().build());
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(simulator.url())
+                .withConnector(new HttpClientGitHubConnector(httpClient))
+                .withOAuthToken(TOKEN)
+                .build();
+        
+        GHRepository repository = gitHub.createRepository("lab1-student")
+                .owner("sim-org-1")
+                .fromTemplateRepository("sim-org-1", "repo-1")
+                .private_(true)
+                .create();
+        repository.addCollaborators(GHOrganization.RepositoryRole.from(GHOrganization.Permission.PUSH),
+                gitHub.getUser("sim-user-7"));
+        repository.getBranch(repository.getDefaultBranch()).enableProtection().allowDeletions(false).enable();
+        
+        assertThat(gitHub.getRepository("sim-org-1/lab1-student").isPrivate()).isTrue();
+        assertThatThrownBy(() -> gitHub.createRepository("lab1-student")
+                .owner("sim-org-1")
+                .fromTemplateRepository("sim-org-1", "repo-1")
+                .create())
+                .isInstanceOfSatisfying(HttpException.class, e -> assertThat(e.getResponseCode()).isEqualTo(422));
+    }
+    
+    @Test
+    void answersMatchingETagWithNotModifiedWithoutUsingBudget() throws Exception {
+        start(GitHubSimulatorSettings.builder().build());
+        
+        HttpResponse<String> first = get("/user", TOKEN, null);
+        HttpResponse<String> second = get("/user", TOKEN, first.headers().firstValue("ETag").orElseThrow());
+        
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(second.statusCode()).isEqualTo(304);
+        assertThat(second.headers().firstValue("X-RateLimit-Remaining")).hasValue("4999");
+    }
+    
+    @Test
+    void enforcesTheRateLimitPerToken() throws Exception {
+        start(GitHubSimulatorSettings.builder().rateLimit(2).build());
+        
+        List<Integer> statuses = List.of(
+                get("/user", TOKEN, null).statusCode(),
+                get("/user", TOKEN, null).statusCode(),
+                get("/user", TOKEN, null).statusCode(),
+                get("/user", "other-token", null).statusCode());
+        
+        assertThat(statuses).containsExactly(200, 200, 403, 200);
+    }
+    
+    @Test
+    void injectsErrorsAndRejectsInvalidTokens() throws Exception {
+        start(GitHubSimulatorSettings.builder().build());
+        GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(simulator.url())
+                .withConnector(new HttpClientGitHubConnector(httpClient))
+                .withOAuthToken("invalid-token")
+                .build();
+        
+        assertThatThrownBy(gitHub::getMyself)
+                .isInstanceOfSatisfying(HttpException.class, e -> assertThat(e.getResponseCode()).isEqualTo(401));
+        
+        simulator.reconfigure(simulator.getSettings().toBuilder()
+                .errorRate(1.0)
+                .errorStatuses(List.of(502))
+                .latency(LatencyDistribution.parse("fixed:5ms"))
+                .build());
+        assertThat(get("/user", TOKEN, null).statusCode()).isEqualTo(502);
+    }
+    
+    @Test
+    void parsesLatencySpecs() {
+        assertThat(LatencyDistribution.parse("fixed:40ms").sample(null)).isEqualTo(Duration.ofMillis(40));
+        assertThat(LatencyDistribution.parse("none").sample(null)).isZero();
+        assertThatThrownBy(() -> LatencyDistribution.parse("lognormal:80ms"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private void start(GitHubSimulatorSettings settings) throws IOException {
+        simulator = new GitHubApiSimulator(0, settings);
+        simulator.start();
+    }
+    
+    private HttpResponse<String> get(String path, String token, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(simulator.url() + path))
+                .header("Authorization", "token " + token);
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,146 @@
+package tn.esprithub.server.github.simulator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import tn.esprithub.server.config.GitHubClientConfig;
+import tn.esprithub.server.github.client.DeadlineHttpClientGitHubConnector;
+import tn.esprithub.server.github.client.GitHubClientFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares request throughput with platform and virtual threads while GitHub answers with a
+ * simulated latency. Each simulated server request reads a repository through the same client
+ * factory, connector and HTTP client the application uses; in platform mode requests run on a
+ * pool sized like Tomcat's default, in virtual mode each gets its own virtual thread, as with
+ * {@code spring.threads.virtual.enabled}. The workload avoids {@code getMyself()}, which pins
+ * its carrier on Java 21 and so gains nothing from virtual threads. Enabled with
+ * {@code GITHUB_LOADTEST=true}, e.g. {@code GITHUB_LOADTEST=true mvn test -Dtest=ThreadModeLoadTest}.
+ */
+@EnabledIfEnvironmentVariable(named = "GITHUB_LOADTEST", matches = "true")
+class ThreadModeLoadTest {
+    
+    private static final int PLATFORM_THREADS = 200; // server.tomcat.threads.max default
+    private static final int CLIENTS = 1000; // requests in flight at any time
+    private static final int REQUESTS = 10_000;
+    private static final int USERS = 1000;
+    private static final String LATENCY = "fixed:300ms";
+    
+    private GitHubApiSimulator simulator;
+    
+    @BeforeEach
+    void startSimulator() throws IOException {
+        simulator = new GitHubApiSimulator(0, GitHubSimulatorSettings.builder()
+                .latency(LatencyDistribution.parse(LATENCY))
+                .rateLimit(REQUESTS * 3)
+                .build());
+        simulator.start();
+    }
+    
+    @AfterEach
+    void stopSimulator() {
+        simulator.stop();
+    }
+    
+    @Test
+    void virtualThreadsServeMoreRequestsWhileGitHubIsSlow() throws Exception {
+        // Warms up the JIT and the simulator's data for both modes
+        run(false, REQUESTS / 10);
+        run(true, REQUESTS / 10);
+        
+        Result platform = run(false, REQUESTS);
+        Result virtual = run(true, REQUESTS);
+        
+        System.out.printf("GitHub latency %s, %d clients, %d requests%n", LATENCY, CLIENTS, REQUESTS);
+        System.out.println("platform (" + PLATFORM_THREADS + " threads): " + platform);
+        System.out.println("virtual: " + virtual);
+        
+        // Leaves room for the odd keep-alive connection the simulator closed while it was reused
+        assertThat(platform.failed()).isLessThanOrEqualTo(REQUESTS / 1000);
+        assertThat(virtual.failed()).isLessThanOrEqualTo(REQUESTS / 1000);
+        // Platform threads cap throughput at PLATFORM_THREADS / latency, virtual threads do not
+        assertThat(virtual.throughput()).isGreaterThan(platform.throughput() * 1.5);
+    }
+    
+    private Result run(boolean virtualThreads, int requests) throws Exception {
+        DeadlineHttpClientGitHubConnector connector = new DeadlineHttpClientGitHubConnector(
+                new GitHubClientConfig().gitHubHttpClient(Duration.ofSeconds(5)), Duration.ofSeconds(30),
+                Duration.ofSeconds(30));
+        GitHubClientFactory clients = new GitHubClientFactory(connector, simulator.url(), Duration.ofMinutes(10),
+                USERS, new SimpleMeterRegistry());
+        // Clients are built outside the measurement, as a logged-in user's client is cached
+        GitHubSimulatorSettings settings = simulator.getSettings();
+        simulator.reconfigure(settings.toBuilder().latency(LatencyDistribution.none()).build());
+        for (int user = 0; user < USERS; user++) {
+            clients.forToken(token(user));
+        }
+        simulator.reconfigure(settings);
+        
+        Semaphore inFlight = new Semaphore(CLIENTS);
+        AtomicInteger failed = new AtomicInteger();
+        long[] latencies = new long[requests];
+        List<Future<?>> futures = new ArrayList<>(requests);
+        long start = System.nanoTime();
+        try (ExecutorService requestThreads = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS)) {
+            for (int i = 0; i < requests; i++) {
+                int request = i;
+                inFlight.acquire();
+                long submitted = System.nanoTime();
+                futures.add(requestThreads.submit(() -> {
+                    try {
+                        String token = token(request % USERS);
+                        clients.forToken(token).getRepository(simulator.loginFor(token) + "/repo-1");
+                    } catch (IOException | RuntimeException e) {
+                        if (failed.getAndIncrement() == 0) {
+                            System.out.println("first failure: " + e);
+                        }
+                    } finally {
+                        latencies[request] = System.nanoTime() - submitted;
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        
+        Arrays.sort(latencies);
+        return new Result(requests * 1_000_000_000.0 / elapsed, percentile(latencies, 0.50),
+                percentile(latencies, 0.99), failed.get());
+    }
+    
+    private static String token(int user) {
+        return "gho_load_" + user;
+    }
+    
+    private static double percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+    
+    private record Result(double throughput, double p50Ms, double p99Ms, int failed) {
+        
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p50 %.0f ms, p99 %.0f ms, %d failed", throughput, p50Ms, p99Ms, failed);
+        }
+    }
+}
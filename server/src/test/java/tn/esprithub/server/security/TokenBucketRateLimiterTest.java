@@ -0,0 +1,89 @@
+package tn.esprithub.server.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+    
+    private static final Duration HOUR = Duration.ofHours(1);
+    
+    @Test
+    void allowsABurstOfCapacityThenReportsTheWait() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, HOUR, 100);
+        
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isZero();
+        
+        // One token comes back every 20 minutes
+        assertThat(limiter.tryAcquire("a")).isPositive().isLessThanOrEqualTo(TimeUnit.MINUTES.toNanos(20));
+    }
+    
+    @Test
+    void rejectedAttemptsDoNotUseUpTokens() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, HOUR, 100);
+        limiter.tryAcquire("a");
+        
+        long firstWait = limiter.tryAcquire("a");
+        long secondWait = limiter.tryAcquire("a");
+        
+        // Without a charge for rejected attempts the wait only shrinks with time
+        assertThat(secondWait).isLessThanOrEqualTo(firstWait);
+    }
+    
+    @Test
+    void keepsBucketsPerKey() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, HOUR, 100);
+        
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+        assertThat(limiter.size()).isEqualTo(2);
+    }
+    
+    @Test
+    void refillsOneTokenPerEmissionInterval() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, Duration.ofMillis(200), 100);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("a");
+        
+        long wait = limiter.tryAcquire("a");
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(limiter.tryAcquire("a")).isZero();
+        // Only one token came back, not the whole burst
+        assertThat(limiter.tryAcquire("a")).isPositive();
+    }
+    
+    @Test
+    void chargesNewKeysToOneOverflowBucketOnceFull() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, HOUR, 2);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        
+        assertThat(limiter.tryAcquire("c")).isZero();
+        // "d" shares the overflow bucket "c" just emptied
+        assertThat(limiter.tryAcquire("d")).isPositive();
+        assertThat(limiter.size()).isEqualTo(3);
+    }
+    
+    @Test
+    void evictsBucketsThatRefilledCompletely() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, Duration.ofMillis(50), 1);
+        limiter.tryAcquire("a");
+        
+        Thread.sleep(60);
+        // The table is full, so the new key first sweeps the idle bucket and then gets its own
+        assertThat(limiter.tryAcquire("b")).isZero();
+        assertThat(limiter.size()).isEqualTo(1);
+        
+        Thread.sleep(60);
+        limiter.evictIdle();
+        assertThat(limiter.size()).isZero();
+    }
+}